@@ -18,6 +18,8 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ComponentAdapter;
 import java.awt.event.ComponentEvent;
 import java.awt.event.KeyEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.io.File;
 
 public class Application
@@ -75,7 +77,14 @@ public class Application
 
         addMenuBar(mainWindow, view);
         mainWindow.setResizable(true);
-        mainWindow.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        mainWindow.setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
+        mainWindow.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                mainWindow.dispose();
+                controller.shutdown(() -> System.exit(0));
+            }
+        });
         mainWindow.add(view);
         new MandelbrotSetInitializer().execute();
         mainWindow.pack();
@@ -0,0 +1,103 @@
+package io.github.mateusz00.MandelbrotSet.RGBPickers;
+
+import java.awt.*;
+
+/**
+ * Colors of RGBPicker baked for given max iterations and smoothing. Without smoothing every number of iterations
+ * has its own entry (unless there are more than MAX_ENTRIES), so colors are the same as the ones of the picker.
+ * With smoothing colors are sampled several times per iteration and interpolated. Values outside of the table
+ * are calculated by the picker.
+ */
+public class Palette
+{
+    private static final int SMOOTH_SAMPLES = 8; // Entries per iteration when smoothing is enabled
+    private static final int MAX_ENTRIES = 1 << 20;
+    private static final int LOG_TABLE_SIZE = 1024;
+    private static final double[] LOG2_TABLE = new double[LOG_TABLE_SIZE + 1]; // log2 of values from <1, 2>
+    private static final double LN_2 = Math.log(2);
+    private final RGBPicker picker;
+    private final long maxIterations;
+    private final boolean colorSmoothing;
+    private final int[] colors;
+    private final double samplesPerIteration;
+    private final int blackRGB = Color.BLACK.getRGB();
+
+    static {
+        for(int i = 0; i <= LOG_TABLE_SIZE; ++i)
+            LOG2_TABLE[i] = Math.log(1 + (double) i / LOG_TABLE_SIZE) / LN_2;
+    }
+
+    public Palette(RGBPicker picker, long maxIterations, boolean colorSmoothing) {
+        this.picker = picker;
+        this.maxIterations = maxIterations;
+        this.colorSmoothing = colorSmoothing;
+
+        // Smooth values of escaped pixels are usually in range <0, maxIterations + 1>
+        double range = colorSmoothing ? maxIterations + 1 : maxIterations;
+        double samples = colorSmoothing ? SMOOTH_SAMPLES : 1;
+        samplesPerIteration = Math.min(samples, MAX_ENTRIES / range);
+        colors = new int[(int) (range * samplesPerIteration) + 1];
+
+        for(int i = 0; i < colors.length; ++i)
+            colors[i] = picker.valueToRGB(i / samplesPerIteration, maxIterations);
+    }
+
+    /**
+     * @return true if palette was created for given picker and settings
+     */
+    public boolean matches(RGBPicker picker, long maxIterations, boolean colorSmoothing) {
+        return this.picker == picker && this.maxIterations == maxIterations
+                && this.colorSmoothing == colorSmoothing;
+    }
+
+    /**
+     * @see RGBPicker#iterationsToRGB
+     */
+    public int getRGB(int iterations, float escapeValue) {
+        if(iterations == maxIterations)
+            return blackRGB;
+
+        if(!colorSmoothing) {
+            // Nearest entry if there are fewer entries than iterations
+            int index = (int) (iterations * samplesPerIteration);
+            return index >= 0 && index < colors.length ? colors[index] : picker.valueToRGB(iterations, maxIterations);
+        }
+
+        double value = iterations + 1 - log2(log2(escapeValue) * LN_2);
+        double position = value * samplesPerIteration;
+
+        if(!(position >= 0 && position < colors.length - 1))
+            return picker.valueToRGB(value, maxIterations);
+
+        int index = (int) position;
+        return interpolate(colors[index], colors[index + 1], position - index);
+    }
+
+    private static int interpolate(int rgb1, int rgb2, double fraction) {
+        int result = 0xFF000000;
+
+        for(int shift = 0; shift < 24; shift += 8) {
+            int c1 = (rgb1 >> shift) & 0xFF;
+            int c2 = (rgb2 >> shift) & 0xFF;
+            result |= ((int) (c1 + (c2 - c1) * fraction + 0.5)) << shift;
+        }
+
+        return result;
+    }
+
+    /**
+     * Logarithm calculated from exponent of the value and interpolated logarithm of its mantissa
+     */
+    private static double log2(double x) {
+        if(!(x >= Double.MIN_NORMAL && x < Double.POSITIVE_INFINITY))
+            return Math.log(x) / LN_2;
+
+        long bits = Double.doubleToRawLongBits(x);
+        int exponent = (int) (bits >>> 52) - 1023;
+        double mantissa = Double.longBitsToDouble((bits & 0xFFFFFFFFFFFFFL) | 0x3FF0000000000000L);
+        double position = (mantissa - 1) * LOG_TABLE_SIZE;
+        int index = (int) position;
+
+        return exponent + LOG2_TABLE[index] + (LOG2_TABLE[index + 1] - LOG2_TABLE[index]) * (position - index);
+    }
+}
@@ -1,28 +1,18 @@
 package io.github.mateusz00.MandelbrotSet.RGBPickers;
 
-import io.github.mateusz00.MandelbrotSet.mandelbrot.MandelbrotSetResult;
-
 import java.awt.*;
 
 public class PickerBlue implements RGBPicker
 {
     @Override
-    public int iterationsToRGB(MandelbrotSetResult result, long maxIterations, boolean colorSmoothing) {
-        if(result.getIterations() == maxIterations)
-            return Color.BLACK.getRGB();
-
-        double value = result.getIterations();
-        if(colorSmoothing)
-            value = (result.getIterations() + 1 - Math.log(Math.log(result.getEscapeValue())) / Math.log(2));
-
+    public int valueToRGB(double value, long maxIterations) {
         float h = ((float) (value / maxIterations));
         float b = ((float) (value / maxIterations)) * 9.5f;
         b = Math.min(1, b);
 
-        Color rgb = new Color(Color.HSBtoRGB(h, 1, b));
-        Color rgb2 = new Color(rgb.getBlue(), rgb.getGreen(), rgb.getRed()); // Swap red with blue
+        int rgb = Color.HSBtoRGB(h, 1, b);
 
-        return rgb2.getRGB();
+        return (rgb & 0xFF00FF00) | ((rgb & 0xFF) << 16) | ((rgb >> 16) & 0xFF); // Swap red with blue
     }
 
     @Override
@@ -1,20 +1,11 @@
 package io.github.mateusz00.MandelbrotSet.RGBPickers;
 
-import io.github.mateusz00.MandelbrotSet.mandelbrot.MandelbrotSetResult;
-
 import java.awt.*;
 
 public class PickerRedDark implements RGBPicker
 {
     @Override
-    public int iterationsToRGB(MandelbrotSetResult result, long maxIterations, boolean colorSmoothing) {
-        if(result.getIterations() == maxIterations)
-            return Color.BLACK.getRGB();
-
-        double value = result.getIterations();
-        if(colorSmoothing)
-            value = (result.getIterations() + 1 - Math.log(Math.log(result.getEscapeValue())) / Math.log(2));
-
+    public int valueToRGB(double value, long maxIterations) {
         float h = ((float) (value / maxIterations));
         float b = ((float) (value / maxIterations)) * 9.5f;
         b = Math.min(1, b);
@@ -1,9 +1,36 @@
 package io.github.mateusz00.MandelbrotSet.RGBPickers;
 
-import io.github.mateusz00.MandelbrotSet.mandelbrot.MandelbrotSetResult;
+import java.awt.*;
 
 public interface RGBPicker
 {
-    int iterationsToRGB(MandelbrotSetResult result, long maxIterations, boolean colorSmoothing);
+    /**
+     * @param iterations number of iterations performed for pixel
+     * @param escapeValue squared magnitude of Z after last iteration
+     */
+    default int iterationsToRGB(int iterations, float escapeValue, long maxIterations, boolean colorSmoothing) {
+        if(iterations == maxIterations)
+            return Color.BLACK.getRGB();
+
+        double value = iterations;
+        if(colorSmoothing)
+            value = (iterations + 1 - Math.log(Math.log(escapeValue)) / Math.log(2));
+
+        return valueToRGB(value, maxIterations);
+    }
+
+    /**
+     * @param value number of iterations of pixel that escaped, fractional when smooth coloring is enabled
+     */
+    int valueToRGB(double value, long maxIterations);
+
+    /**
+     * Bakes colors for given settings into lookup table, so coloring pixels doesn't calculate colors.
+     * Palette has to be created again when max iterations or smoothing changes.
+     */
+    default Palette createPalette(long maxIterations, boolean colorSmoothing) {
+        return new Palette(this, maxIterations, colorSmoothing);
+    }
+
     String getDescription();
 }
@@ -31,9 +31,8 @@ public class GenerateDialog extends MandelbrotSetDialog
     }
 
     @Override
-    protected void flushValues() {
-        super.flushValues();
-        getController().setMandelbrotSize(new Dimension(getSizeXValue(), getSizeYValue()));
+    protected Dimension getViewportSize() {
+        return new Dimension(getSizeXValue(), getSizeYValue());
     }
 
     @Override
@@ -8,6 +8,7 @@ import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.util.function.Supplier;
 
 public class ImageGenerateDialog extends GenerateDialog
 {
@@ -77,34 +78,20 @@ public class ImageGenerateDialog extends GenerateDialog
         generateButton.addActionListener((e) -> {
             // Save file destination have to be chosen
             if(!saveDestination.getText().isEmpty()) {
-                // Save values that will be restored after generating image
-                int sizeX = getController().getMandelbrotSize().width;
-                int sizeY = getController().getMandelbrotSize().height;
-
-                // Generate mandelbrot set
-                flushValues();
-                getController().generateNewSet();
-                BufferedImage img = getController().getBufferedImage();
-
-                // Write generated mandelbrot set to file
-                File file = new File(saveDestination.getText());
-
-                try {
-                    String extension = ((ExtensionFilter) imageFileChooser.getFileFilter()).getEnforcedSaveExtension();
-                    ImageIO.write(img, extension, file);
-
-                    JOptionPane.showMessageDialog(this, "Finished generating image",
-                            "Task completed", JOptionPane.INFORMATION_MESSAGE);
-                }
-                catch(IOException exception) {
-                    exception.printStackTrace();
-
-                    JOptionPane.showMessageDialog(this, "Couldn't save image",
-                            "Failure", JOptionPane.ERROR_MESSAGE);
-                }
-                finally {
-                    getController().setMandelbrotSize(new Dimension(sizeX, sizeY));
-                }
+                String extension = ((ExtensionFilter) imageFileChooser.getFileFilter()).getEnforcedSaveExtension();
+
+                // Image is generated and colored in one pass, main window isn't resized
+                Supplier<BufferedImage> image = applyValues(getController()::renderImage);
+
+                if(image == null)
+                    return;
+
+                // Generate mandelbrot set in background, so that it can be cancelled
+                ProgressDialog progressDialog = new ProgressDialog(this);
+                progressDialog.setCancelAction(() -> getController().cancelGeneration());
+                progressDialog.executeTask(new ImageGenerator(image, new File(saveDestination.getText()),
+                        extension, progressDialog), "Generating image...");
+                progressDialog.setVisible(true);
             }
             else
                 JOptionPane.showMessageDialog(this, "Error: Choose save file destination!",
@@ -114,4 +101,57 @@ public class ImageGenerateDialog extends GenerateDialog
 
         return buttonsPanel;
     }
+
+    private class ImageGenerator extends SwingWorker<Void, Void> {
+        private final Supplier<BufferedImage> image;
+        private final File file;
+        private final String extension;
+        private final ProgressDialog dialog;
+        private boolean saved = false;
+
+        public ImageGenerator(Supplier<BufferedImage> image, File file, String extension, ProgressDialog dialog) {
+            this.image = image;
+            this.file = file;
+            this.extension = extension;
+            this.dialog = dialog;
+        }
+
+        @Override
+        protected Void doInBackground() {
+            BufferedImage img = image.get();
+
+            // Image isn't saved if generation was aborted
+            if(img == null || isCancelled())
+                return null;
+
+            // Write generated mandelbrot set to file
+            try {
+                ImageIO.write(img, extension, file);
+                saved = true;
+            }
+            catch(IOException exception) {
+                exception.printStackTrace();
+            }
+
+            return null;
+        }
+
+        @Override
+        protected void done() {
+            // Viewport of the image was applied to main window without generating it
+            new Thread(getController()::generateNewSet).start();
+
+            if(isCancelled())
+                return;
+
+            dialog.dispose();
+
+            if(saved)
+                JOptionPane.showMessageDialog(ImageGenerateDialog.this, "Finished generating image",
+                        "Task completed", JOptionPane.INFORMATION_MESSAGE);
+            else
+                JOptionPane.showMessageDialog(ImageGenerateDialog.this, "Couldn't save image",
+                        "Failure", JOptionPane.ERROR_MESSAGE);
+        }
+    }
 }
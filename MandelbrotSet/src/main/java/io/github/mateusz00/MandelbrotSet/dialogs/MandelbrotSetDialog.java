@@ -6,11 +6,13 @@ import io.github.mateusz00.MandelbrotSet.mandelbrot.MandelbrotSetController;
 import javax.swing.*;
 import javax.swing.border.Border;
 import java.awt.*;
-import java.awt.geom.Point2D;
+import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.text.DecimalFormat;
 import java.text.Format;
 import java.text.NumberFormat;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
 
 import static io.github.mateusz00.MandelbrotSet.utilities.SwingUtility.createFieldAndLabel;
 import static io.github.mateusz00.MandelbrotSet.utilities.SwingUtility.getFlowLayoutDefaultPadding;
@@ -61,12 +63,12 @@ public class MandelbrotSetDialog extends JDialog
         return BorderFactory.createCompoundBorder(BorderFactory.createTitledBorder(title), getFlowLayoutDefaultPadding());
     }
 
-    protected double getCenterXValue() {
-        return ((Number) centerX.getValue()).doubleValue();
+    protected BigDecimal getCenterXValue() {
+        return toBigDecimal((Number) centerX.getValue());
     }
 
-    protected double getCenterYValue() {
-        return ((Number) centerY.getValue()).doubleValue();
+    protected BigDecimal getCenterYValue() {
+        return toBigDecimal((Number) centerY.getValue());
     }
 
     protected double getXRangeValue() {
@@ -97,11 +99,11 @@ public class MandelbrotSetDialog extends JDialog
         return controller;
     }
 
-    protected void setCenterXValue(double value) {
+    protected void setCenterXValue(BigDecimal value) {
         centerX.setValue(value);
     }
 
-    protected void setCenterYValue(double value) {
+    protected void setCenterYValue(BigDecimal value) {
         centerY.setValue(value);
     }
 
@@ -140,8 +142,8 @@ public class MandelbrotSetDialog extends JDialog
      * Sets values of form fields to values currently set in mandelbrot set model
      */
     protected void loadCurrentValues() {
-        setCenterXValue(controller.getCenter().getX());
-        setCenterYValue(controller.getCenter().getY());
+        setCenterXValue(controller.getPreciseCenterX());
+        setCenterYValue(controller.getPreciseCenterY());
         setXRangeValue(controller.getXRange());
         setYRangeValue(controller.getYRange());
         setMaxIterationsValue(controller.getMaxIterations());
@@ -151,18 +153,71 @@ public class MandelbrotSetDialog extends JDialog
     }
 
     /**
-     * Updates controller with values from form fields
+     * Updates controller with values from form fields except viewport (center, ranges, max iterations and size)
      */
     protected void flushValues() {
         controller.setEscapeRadius(getEscapeRadiusValue());
-        controller.setCenter(new Point2D.Double(getCenterXValue(), getCenterYValue()));
-        controller.setMaxIterations(getMaxIterationsValue());
-        controller.setXRange(getXRangeValue());
-        controller.setYRange(getYRangeValue());
         controller.setRGBPicker(getRGBPicker());
         controller.setSmoothColoring(isSmoothColoringEnabled());
     }
 
+    /**
+     * @return size of generated set, dialogs that don't change it return current size
+     */
+    protected Dimension getViewportSize() {
+        return controller.getMandelbrotSize();
+    }
+
+    /**
+     * Validates viewport from form fields and updates controller with all other values. Viewport is applied and
+     * the set is generated once when returned task is called, so it can be done outside of the EDT.
+     * @return task returning false if generation was cancelled, null if viewport is invalid (user is informed)
+     */
+    protected BooleanSupplier applyValues() {
+        Supplier<Boolean> task = applyValues(controller::setViewport);
+        return task != null ? task::get : null;
+    }
+
+    /**
+     * Validates viewport from form fields and updates controller with all other values. Viewport is passed to
+     * the action when returned task is called, so it can be done outside of the EDT.
+     * @return task returning result of the action, null if viewport is invalid (user is informed)
+     */
+    protected <T> Supplier<T> applyValues(ViewportAction<T> action) {
+        Dimension size = getViewportSize();
+        BigDecimal centerX = getCenterXValue();
+        BigDecimal centerY = getCenterYValue();
+        double xRange = getXRangeValue();
+        double yRange = getYRangeValue();
+        long maxIterations = getMaxIterationsValue();
+
+        try {
+            controller.validateViewport(size, xRange, yRange, maxIterations);
+        }
+        catch(IllegalArgumentException e) {
+            JOptionPane.showMessageDialog(this, "Error: " + e.getMessage() + "!", "Error",
+                    JOptionPane.ERROR_MESSAGE);
+            return null;
+        }
+
+        flushValues();
+        return () -> action.apply(size, centerX, centerY, xRange, yRange, maxIterations);
+    }
+
+    /**
+     * Fields hold Integer set by createFieldAndLabel until they get value of the model
+     */
+    private static BigDecimal toBigDecimal(Number value) {
+        return value instanceof BigDecimal ? (BigDecimal) value : new BigDecimal(value.toString());
+    }
+
+    @FunctionalInterface
+    protected interface ViewportAction<T>
+    {
+        T apply(Dimension size, BigDecimal centerX, BigDecimal centerY, double xRange, double yRange,
+                long maxIterations);
+    }
+
     private JPanel createFormPanel() {
         // Create form panel
         JPanel formPanel = new JPanel();
@@ -173,6 +228,12 @@ public class MandelbrotSetDialog extends JDialog
         doubleFormat.setMinimumFractionDigits(1);
         doubleFormat.setMaximumFractionDigits(Double.MAX_EXPONENT);
 
+        // Center is parsed and shown with all its digits, so deep zooms don't lose precision
+        DecimalFormat preciseFormat = new DecimalFormat();
+        preciseFormat.setMinimumFractionDigits(1);
+        preciseFormat.setMaximumFractionDigits(Integer.MAX_VALUE);
+        preciseFormat.setParseBigDecimal(true);
+
         DecimalFormat decimalFormat = new DecimalFormat();
         decimalFormat.setMinimumIntegerDigits(1);
         decimalFormat.setMaximumIntegerDigits(19);
@@ -180,7 +241,7 @@ public class MandelbrotSetDialog extends JDialog
         decimalFormat.setRoundingMode(RoundingMode.FLOOR);
 
         // Add panels to form panel
-        formPanel.add(createCenterPanel(doubleFormat));
+        formPanel.add(createCenterPanel(preciseFormat));
         formPanel.add(createRangePanel(doubleFormat));
         formPanel.add(createIterationsPanel(decimalFormat));
         formPanel.add(createEscapeRadiusPanel(decimalFormat));
@@ -189,14 +250,14 @@ public class MandelbrotSetDialog extends JDialog
         return formPanel;
     }
 
-    private JPanel createCenterPanel(Format doubleFormat) {
+    private JPanel createCenterPanel(Format preciseFormat) {
         JPanel panelCenter = new JPanel(new GridLayout(1, 2, 5, 5));
         panelCenter.setBorder(createFormPanelBorder("Center"));
         JPanel subPanelCenter1 = new JPanel(new BorderLayout(5, 5));
         JPanel subPanelCenter2 = new JPanel(new BorderLayout(5, 5));
 
-        centerX = createFieldAndLabel(doubleFormat, subPanelCenter1, "x:", BorderLayout.WEST, BorderLayout.CENTER);
-        centerY = createFieldAndLabel(doubleFormat, subPanelCenter2, "y:", BorderLayout.WEST, BorderLayout.CENTER);
+        centerX = createFieldAndLabel(preciseFormat, subPanelCenter1, "x:", BorderLayout.WEST, BorderLayout.CENTER);
+        centerY = createFieldAndLabel(preciseFormat, subPanelCenter2, "y:", BorderLayout.WEST, BorderLayout.CENTER);
 
         panelCenter.add(subPanelCenter1);
         panelCenter.add(subPanelCenter2);
@@ -1,5 +1,6 @@
 package io.github.mateusz00.MandelbrotSet.dialogs;
 
+import io.github.mateusz00.MandelbrotSet.utilities.Procedure;
 import io.github.mateusz00.MandelbrotSet.utilities.SwingUtility;
 
 import javax.swing.*;
@@ -12,6 +13,7 @@ public class ProgressDialog extends JDialog
     private final JProgressBar progressBar;
     private final JLabel processInfo = new JLabel();
     private SwingWorker<Void, Void> currentTask = null;
+    private Procedure cancelAction = null;
 
     public ProgressDialog(Window parentWindow) {
         super(parentWindow, "Progress info");
@@ -35,6 +37,9 @@ public class ProgressDialog extends JDialog
                 super.windowClosing(e);
 
                 currentTask.cancel(false);
+                if(cancelAction != null)
+                    cancelAction.call();
+
                 dispose();
             }
         });
@@ -45,6 +50,14 @@ public class ProgressDialog extends JDialog
         setModal(true);
     }
 
+    /**
+     * @param cancelAction called after task is cancelled by closing the dialog, e.g. to abort work that doesn't
+     *                     check whether task was cancelled
+     */
+    public void setCancelAction(Procedure cancelAction) {
+        this.cancelAction = cancelAction;
+    }
+
     public void executeTask(SwingWorker<Void, Void> task, String description) {
         SwingUtilities.invokeLater(() -> {
             processInfo.setText(description);
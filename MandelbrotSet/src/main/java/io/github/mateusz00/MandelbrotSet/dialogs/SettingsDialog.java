@@ -1,10 +1,12 @@
 package io.github.mateusz00.MandelbrotSet.dialogs;
 
 import io.github.mateusz00.MandelbrotSet.mandelbrot.MandelbrotSetController;
+import io.github.mateusz00.MandelbrotSet.mandelbrot.RenderMode;
 
 import javax.swing.*;
 import java.awt.*;
 import java.text.NumberFormat;
+import java.util.function.BooleanSupplier;
 
 import static io.github.mateusz00.MandelbrotSet.utilities.SwingUtility.createFieldAndLabel;
 
@@ -13,6 +15,12 @@ public class SettingsDialog extends MandelbrotSetDialog
     private MandelbrotSetController controller;
     private JFormattedTextField zoomStep;
     private JFormattedTextField maxIterationsMultiplier;
+    private JCheckBox cardioidCheck;
+    private JCheckBox periodicityCheck;
+    private JCheckBox singlePrecision;
+    private JComboBox<RenderMode> renderMode;
+    private JFormattedTextField renderThreads;
+    private JFormattedTextField renderThreadPriority;
     private JButton saveButton;
     /**
      * Only adds some panels and components. Does not set default close operation, resizability, visibility etc.
@@ -22,6 +30,8 @@ public class SettingsDialog extends MandelbrotSetDialog
         this.controller = controller;
 
         addToMainPanel(createZoomingPanel());
+        addToMainPanel(createOptimizationsPanel());
+        addToMainPanel(createThreadsPanel());
         addToMainPanel(createSavePanel());
         loadCurrentValues();
     }
@@ -31,6 +41,12 @@ public class SettingsDialog extends MandelbrotSetDialog
         super.loadCurrentValues();
         zoomStep.setValue(controller.getZoomStep());
         maxIterationsMultiplier.setValue(controller.getMaxIterationsMultiplier());
+        cardioidCheck.setSelected(controller.isCardioidCheckEnabled());
+        periodicityCheck.setSelected(controller.isPeriodicityCheckEnabled());
+        singlePrecision.setSelected(controller.isSinglePrecisionEnabled());
+        renderMode.setSelectedItem(controller.getRenderMode());
+        renderThreads.setValue(controller.getRenderThreads());
+        renderThreadPriority.setValue(controller.getRenderThreadPriority());
     }
 
     @Override
@@ -38,8 +54,12 @@ public class SettingsDialog extends MandelbrotSetDialog
         super.flushValues();
         controller.setZoomStep(Math.max(((Number) zoomStep.getValue()).doubleValue(), 0));
         controller.setMaxIterationsMultiplier(((Number) maxIterationsMultiplier.getValue()).doubleValue());
-
-        new Thread(() -> controller.generateNewSet()).start();
+        controller.setCardioidCheck(cardioidCheck.isSelected());
+        controller.setPeriodicityCheck(periodicityCheck.isSelected());
+        controller.setSinglePrecision(singlePrecision.isSelected());
+        controller.setRenderMode((RenderMode) renderMode.getSelectedItem());
+        controller.setRenderThreads(((Number) renderThreads.getValue()).intValue());
+        controller.setRenderThreadPriority(((Number) renderThreadPriority.getValue()).intValue());
     }
 
     private JPanel createZoomingPanel() {
@@ -59,12 +79,59 @@ public class SettingsDialog extends MandelbrotSetDialog
         return zoomingPanel;
     }
 
+    private JPanel createOptimizationsPanel() {
+        JPanel optimizationsPanel = new JPanel(new GridLayout(0, 1, 0, 2));
+        optimizationsPanel.setBorder(createFormPanelBorder("Optimizations"));
+
+        cardioidCheck = new JCheckBox("Skip main cardioid and period-2 bulb");
+        cardioidCheck.setToolTipText("Points inside main cardioid and period-2 bulb are recognized without iterating");
+        optimizationsPanel.add(cardioidCheck);
+
+        periodicityCheck = new JCheckBox("Detect periodic orbits");
+        periodicityCheck.setToolTipText("Stops iterating points whose orbit became periodic " +
+                "(Speeds up areas with many interior points)");
+        optimizationsPanel.add(periodicityCheck);
+
+        singlePrecision = new JCheckBox("Use single precision for shallow views");
+        singlePrecision.setToolTipText("Faster, but a few pixels on the border of the set can get " +
+                "slightly different number of iterations");
+        optimizationsPanel.add(singlePrecision);
+
+        renderMode = new JComboBox<>(RenderMode.values());
+        renderMode.setToolTipText("Algorithm used to fill the image (Every pixel is exact, others skip calculating " +
+                "areas with the same number of iterations)");
+        optimizationsPanel.add(renderMode);
+
+        return optimizationsPanel;
+    }
+
+    private JPanel createThreadsPanel() {
+        JPanel threadsPanel = new JPanel(new GridLayout(0, 2, 15, 2));
+        threadsPanel.setBorder(createFormPanelBorder("Render threads"));
+
+        NumberFormat integerFormat = NumberFormat.getIntegerInstance();
+
+        renderThreads = createFieldAndLabel(integerFormat, threadsPanel, "Threads:");
+        renderThreads.setToolTipText("Number of threads calculating the set (Use fewer threads than cores to keep " +
+                "the application responsive on busy machines)");
+        renderThreadPriority = createFieldAndLabel(integerFormat, threadsPanel, "Priority:");
+        renderThreadPriority.setToolTipText("Priority of threads calculating the set (" + Thread.MIN_PRIORITY +
+                " = lowest, " + Thread.MAX_PRIORITY + " = highest)");
+
+        return threadsPanel;
+    }
+
     private JPanel createSavePanel() {
         JPanel savePanel = new JPanel();
         savePanel.setBorder(BorderFactory.createEmptyBorder(10, 0, 0, 0));
 
         saveButton = new JButton("Save settings");
-        saveButton.addActionListener((e) -> flushValues());
+        saveButton.addActionListener((e) -> {
+            BooleanSupplier viewport = applyValues();
+
+            if(viewport != null)
+                new Thread(viewport::getAsBoolean).start();
+        });
         savePanel.add(saveButton);
 
         return savePanel;
@@ -18,6 +18,7 @@ import java.io.IOException;
 import java.math.RoundingMode;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
+import java.util.function.Supplier;
 
 import static io.github.mateusz00.MandelbrotSet.utilities.SwingUtility.createFieldAndLabel;
 
@@ -166,14 +167,14 @@ public class VideoGenerateDialog extends GenerateDialog
                     return;
 
                 // Save values that will be restored after generating frames
-                int sizeX = getController().getMandelbrotSize().width;
-                int sizeY = getController().getMandelbrotSize().height;
                 double zoomStepOld = getController().getZoomStep();
                 double maxIterationsMultiplierOld = getController().getMaxIterationsMultiplier();
                 int digits = Utility.digitsNumber(framesVal);
 
-                // Update mandelbrot set model
-                flushValues();
+                // Update mandelbrot set model, frames are generated and colored in one pass without resizing main window
+                Supplier<BufferedImage> firstFrame = applyValues(getController()::renderImage);
+                if(firstFrame == null)
+                    return;
 
                 // Create directory for frames
                 File destination = new File(saveDestination.getText());
@@ -183,14 +184,14 @@ public class VideoGenerateDialog extends GenerateDialog
                 // Generate all frames and save them as individual images then use them to create video if user checked
                 // appropriate checkbox and have ffmpeg
                 ProgressDialog progressDialog = new ProgressDialog(this);
-                progressDialog.executeTask(new FrameGenerator(framesVal, digits, framesDir, progressDialog),
-                        "Generating frames...");
+                progressDialog.setCancelAction(() -> getController().cancelGeneration());
+                progressDialog.executeTask(new FrameGenerator(firstFrame, framesVal, digits, framesDir,
+                        progressDialog), "Generating frames...");
                 progressDialog.setVisible(true);
 
                 // Set some old values that were overwritten by video settings
                 getController().setZoomStep(zoomStepOld);
                 getController().setMaxIterationsMultiplier(maxIterationsMultiplierOld);
-                getController().setMandelbrotSize(new Dimension(sizeX, sizeY));
             }
             else
                 JOptionPane.showMessageDialog(this, "Error: Choose save file destination!",
@@ -202,12 +203,15 @@ public class VideoGenerateDialog extends GenerateDialog
     }
 
     private class FrameGenerator extends SwingWorker<Void, Void> {
+        private final Supplier<BufferedImage> firstFrame;
         private final long framesVal;
         private final int digits;
         private final File framesDir;
         private final ProgressDialog dialog;
 
-        public FrameGenerator(long framesVal, int digits, File framesDir, ProgressDialog dialog) {
+        public FrameGenerator(Supplier<BufferedImage> firstFrame, long framesVal, int digits, File framesDir,
+                              ProgressDialog dialog) {
+            this.firstFrame = firstFrame;
             this.framesVal = framesVal;
             this.digits = digits;
             this.framesDir = framesDir;
@@ -218,17 +222,29 @@ public class VideoGenerateDialog extends GenerateDialog
         protected Void doInBackground() {
             if(framesVal > 0) {
                 // Generate mandelbrot set
-                getController().generateNewSet();
-                saveFrame(0);
+                BufferedImage img = firstFrame.get();
+                if(img == null)
+                    return null;
+
+                saveFrame(img, 0);
                 setProgress((int) ((1 * 100) / framesVal));
 
-                // Generate all frames and save them as individual images
+                // Generate all frames and save them as individual images, image is reused for every frame
                 double zoomStep = getController().getZoomStep();
 
                 for(long i = 1; i < framesVal && !isCancelled(); ++i) {
                     setProgress((int) ((i * 100) / framesVal));
-                    getController().zoom(zoomStep, true);
-                    saveFrame(i);
+
+                    // Frame aborted by other generation is rendered again without zooming, so frames of the
+                    // sequence have no gaps and keep the same zoom step
+                    boolean rendered = getController().renderZoomedImage(zoomStep, img);
+                    while(!rendered && !isCancelled())
+                        rendered = getController().renderZoomedImage(1, img);
+
+                    if(isCancelled())
+                        break;
+
+                    saveFrame(img, i);
                 }
             }
 
@@ -237,6 +253,9 @@ public class VideoGenerateDialog extends GenerateDialog
 
         @Override
         protected void done() {
+            // Viewport of the last frame was applied to main window without generating it
+            new Thread(getController()::generateNewSet).start();
+
             if(isCancelled())
                 return;
 
@@ -251,9 +270,7 @@ public class VideoGenerateDialog extends GenerateDialog
             }
         }
 
-        private void saveFrame(long frameNumber) {
-            BufferedImage img = getController().getBufferedImage();
-
+        private void saveFrame(BufferedImage img, long frameNumber) {
             // Write generated mandelbrot set to file
             String fileNumber = String.format("%0" + digits + "d", frameNumber);
             File file = new File(framesDir + "/frame" + fileNumber + ".png");
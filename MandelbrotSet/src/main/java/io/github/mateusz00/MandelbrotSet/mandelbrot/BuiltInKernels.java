@@ -0,0 +1,200 @@
+package io.github.mateusz00.MandelbrotSet.mandelbrot;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Escape-time kernels shipped with the application
+ */
+class BuiltInKernels
+{
+    private static final boolean VECTOR_KERNEL_SUPPORTED = isVectorKernelSupported();
+
+    /**
+     * @return factories of all built-in kernels (some of them keep per-frame state), faster kernels go first.
+     * Single precision kernels go before double ones, so the band is served by floats before calibration ends.
+     */
+    static List<Supplier<? extends EscapeTimeKernel>> factories() {
+        EnumSet<PrecisionBand> doubleBands = EnumSet.of(PrecisionBand.FLOAT, PrecisionBand.DOUBLE);
+
+        return Arrays.asList(
+                () -> new LineKernel("vector-float", VECTOR_KERNEL_SUPPORTED, EnumSet.of(PrecisionBand.FLOAT),
+                        VectorKernel::generateLineFloat),
+                () -> new LineKernel("float", true, EnumSet.of(PrecisionBand.FLOAT), FloatKernel::generateLine),
+                () -> new LineKernel("vector", VECTOR_KERNEL_SUPPORTED, doubleBands, VectorKernel::generateLine),
+                () -> new LineKernel("interleaved", true, doubleBands, InterleavedKernel::generateLine) {
+                    @Override
+                    public void generateLine(KernelParameters parameters, int firstPixel, int lastPixel, int line,
+                                             MandelbrotSetFrame frame) {
+                        // Escaped orbits can come back inside smaller radius, which block checks would miss
+                        if(parameters.getEscapeRadius() >= InterleavedKernel.MIN_ESCAPE_RADIUS)
+                            super.generateLine(parameters, firstPixel, lastPixel, line, frame);
+                        else
+                            generateLine(ScalarKernel::generateLine, parameters, firstPixel, lastPixel, line, frame);
+                    }
+                },
+                () -> new LineKernel("scalar", true, doubleBands, ScalarKernel::generateLine),
+                PerturbationKernel::new,
+                DoubleDoubleLineKernel::new);
+    }
+
+    private static boolean isVectorKernelSupported() {
+        // Vector API classes can't be linked if jdk.incubator.vector module wasn't added
+        try {
+            return VectorKernel.isSupported();
+        }
+        catch(LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * Signature shared by static line kernels
+     */
+    private interface LineFunction
+    {
+        void generateLine(double left, double xStep, double Pi, int firstPixel, int lastPixel, int pixelStep,
+                          long maxIterations, long escapeRadius, boolean cardioidCheck, double periodicityTolerance,
+                          MandelbrotSetFrame frame, int lineOffset);
+    }
+
+    /**
+     * Adapter of kernel implemented as static method calculating one line
+     */
+    private static class LineKernel implements EscapeTimeKernel
+    {
+        private final String name;
+        private final boolean available;
+        private final EnumSet<PrecisionBand> bands;
+        private final LineFunction function;
+
+        LineKernel(String name, boolean available, EnumSet<PrecisionBand> bands, LineFunction function) {
+            this.name = name;
+            this.available = available;
+            this.bands = bands;
+            this.function = function;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return available;
+        }
+
+        @Override
+        public boolean supports(PrecisionBand band) {
+            return bands.contains(band);
+        }
+
+        @Override
+        public void generateLine(KernelParameters parameters, int firstPixel, int lastPixel, int line,
+                                 MandelbrotSetFrame frame) {
+            generateLine(function, parameters, firstPixel, lastPixel, line, frame);
+        }
+
+        static void generateLine(LineFunction function, KernelParameters parameters, int firstPixel, int lastPixel,
+                                 int line, MandelbrotSetFrame frame) {
+            function.generateLine(parameters.getLeft(), parameters.getXStep(), parameters.getImaginary(line),
+                    firstPixel, lastPixel, parameters.getPixelStep(), parameters.getMaxIterations(),
+                    parameters.getEscapeRadius(), parameters.isCardioidCheckEnabled(),
+                    parameters.getPeriodicityTolerance(), frame, parameters.getLineOffset(line));
+        }
+    }
+
+    private static class DoubleDoubleLineKernel implements EscapeTimeKernel
+    {
+        private final DoubleDouble preciseLeft = new DoubleDouble(); // Coordinates of top-left pixel
+        private final DoubleDouble preciseTop = new DoubleDouble();
+        private final ThreadLocal<DoubleDoubleKernel> kernel = ThreadLocal.withInitial(DoubleDoubleKernel::new);
+
+        @Override
+        public String getName() {
+            return "double-double";
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return true;
+        }
+
+        @Override
+        public boolean supports(PrecisionBand band) {
+            return band == PrecisionBand.DOUBLE_DOUBLE;
+        }
+
+        @Override
+        public void prepare(KernelParameters parameters) {
+            preciseLeft.set(parameters.getCenterX()).add(-parameters.getXRange() / 2.0, 0);
+            preciseTop.set(parameters.getCenterY()).add(-parameters.getYRange() / 2.0, 0);
+        }
+
+        @Override
+        public void generateLine(KernelParameters parameters, int firstPixel, int lastPixel, int line,
+                                 MandelbrotSetFrame frame) {
+            DoubleDoubleKernel kernel = this.kernel.get();
+            double yOffset = parameters.getYStep() * line;
+
+            for(int x = firstPixel; x < lastPixel; x += parameters.getPixelStep())
+                kernel.getIterations(preciseLeft, parameters.getXStep() * x, preciseTop, yOffset,
+                        parameters.getMaxIterations(), parameters.getEscapeRadius(),
+                        parameters.getPeriodicityTolerance(), frame, parameters.getLineOffset(line) + x);
+        }
+    }
+
+    private static class PerturbationKernel implements EscapeTimeKernel
+    {
+        private final PerturbationEngine perturbation = new PerturbationEngine();
+        private double referenceOffsetX; // Distance between top-left pixel and reference point
+        private double referenceOffsetY;
+
+        @Override
+        public String getName() {
+            return "perturbation";
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return true;
+        }
+
+        /**
+         * Mid-depth views are left to double-double kernel, which doesn't depend on one reference orbit
+         */
+        @Override
+        public boolean supports(PrecisionBand band) {
+            return band == PrecisionBand.PERTURBATION;
+        }
+
+        @Override
+        public void prepare(KernelParameters parameters) {
+            BigDecimal centerX = parameters.getCenterX();
+            BigDecimal centerY = parameters.getCenterY();
+
+            perturbation.prepare(centerX, centerY, parameters.getMaxIterations(), parameters.getEscapeRadius(),
+                    Math.min(parameters.getXStep(), parameters.getYStep()),
+                    Math.max(parameters.getXRange(), parameters.getYRange()));
+
+            referenceOffsetX = centerX.subtract(perturbation.getReferenceX()).doubleValue()
+                    - parameters.getXRange() / 2.0;
+            referenceOffsetY = centerY.subtract(perturbation.getReferenceY()).doubleValue()
+                    - parameters.getYRange() / 2.0;
+        }
+
+        @Override
+        public void generateLine(KernelParameters parameters, int firstPixel, int lastPixel, int line,
+                                 MandelbrotSetFrame frame) {
+            double dci = referenceOffsetY + parameters.getYStep() * line;
+
+            for(int x = firstPixel; x < lastPixel; x += parameters.getPixelStep())
+                perturbation.getIterations(referenceOffsetX + parameters.getXStep() * x, dci, frame,
+                        parameters.getLineOffset(line) + x);
+        }
+    }
+}
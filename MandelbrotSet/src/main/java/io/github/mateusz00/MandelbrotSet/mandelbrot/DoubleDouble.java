@@ -0,0 +1,116 @@
+package io.github.mateusz00.MandelbrotSet.mandelbrot;
+
+import java.math.BigDecimal;
+
+/**
+ * Mutable double-double number (unevaluated sum of two doubles, about 106 bits of precision). Operations modify
+ * this object in place so that iterating doesn't allocate anything.
+ * Algorithms: T. J. Dekker, "A floating-point technique for extending the available precision" (1971)
+ */
+final class DoubleDouble
+{
+    private static final double SPLITTER = 134217729.0; // 2^27 + 1
+    double hi;
+    double lo;
+
+    DoubleDouble set(double hi, double lo) {
+        this.hi = hi;
+        this.lo = lo;
+        return this;
+    }
+
+    DoubleDouble set(DoubleDouble value) {
+        return set(value.hi, value.lo);
+    }
+
+    DoubleDouble set(BigDecimal value) {
+        double high = value.doubleValue();
+        return set(high, value.subtract(new BigDecimal(high)).doubleValue());
+    }
+
+    /**
+     * this += value
+     */
+    DoubleDouble add(DoubleDouble value) {
+        return add(value.hi, value.lo);
+    }
+
+    DoubleDouble add(double valueHi, double valueLo) {
+        // Sum of high parts and its error
+        double s = hi + valueHi;
+        double v = s - hi;
+        double e = (hi - (s - v)) + (valueHi - v);
+
+        // Sum of low parts and its error
+        double t = lo + valueLo;
+        double w = t - lo;
+        double f = (lo - (t - w)) + (valueLo - w);
+
+        e += t;
+        double sum = s + e;
+        e = e - (sum - s);
+        e += f;
+
+        hi = sum + e;
+        lo = e - (hi - sum);
+        return this;
+    }
+
+    /**
+     * this -= value
+     */
+    DoubleDouble subtract(DoubleDouble value) {
+        return add(-value.hi, -value.lo);
+    }
+
+    /**
+     * this *= value
+     */
+    DoubleDouble multiply(DoubleDouble value) {
+        double p = hi * value.hi;
+        double e = productError(hi, value.hi, p) + (hi * value.lo + lo * value.hi);
+
+        hi = p + e;
+        lo = e - (hi - p);
+        return this;
+    }
+
+    /**
+     * this *= this
+     */
+    DoubleDouble square() {
+        double p = hi * hi;
+        double e = productError(hi, hi, p) + 2 * hi * lo;
+
+        hi = p + e;
+        lo = e - (hi - p);
+        return this;
+    }
+
+    /**
+     * this *= 2 (exact)
+     */
+    DoubleDouble twice() {
+        hi *= 2;
+        lo *= 2;
+        return this;
+    }
+
+    double doubleValue() {
+        return hi + lo;
+    }
+
+    /**
+     * @return exact error of floating point product a * b = p
+     */
+    private static double productError(double a, double b, double p) {
+        double t = SPLITTER * a;
+        double aHi = t - (t - a);
+        double aLo = a - aHi;
+        t = SPLITTER * b;
+        double bHi = t - (t - b);
+        double bLo = b - bHi;
+
+        return ((aHi * bHi - p) + aHi * bLo + aLo * bHi) + aLo * bLo;
+    }
+}
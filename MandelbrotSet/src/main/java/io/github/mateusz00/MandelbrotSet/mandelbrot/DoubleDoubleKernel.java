@@ -0,0 +1,64 @@
+package io.github.mateusz00.MandelbrotSet.mandelbrot;
+
+/**
+ * Escape-time kernel doing all arithmetic in double-double precision. It's meant for zooms where doubles can't
+ * distinguish neighbouring pixels but reference orbit of perturbation isn't worth calculating yet.
+ * Instances keep temporary numbers, so every thread has to use its own instance.
+ */
+class DoubleDoubleKernel
+{
+    private final DoubleDouble Zr = new DoubleDouble();
+    private final DoubleDouble Zi = new DoubleDouble();
+    private final DoubleDouble Zr2 = new DoubleDouble();
+    private final DoubleDouble Zi2 = new DoubleDouble();
+    private final DoubleDouble savedZr = new DoubleDouble();
+    private final DoubleDouble savedZi = new DoubleDouble();
+    private final DoubleDouble Pr = new DoubleDouble();
+    private final DoubleDouble Pi = new DoubleDouble();
+
+    /**
+     * Stores number of iterations performed for point (left + xOffset, top + yOffset) until going past escapeRadius
+     * and its escape value
+     * @param periodicityTolerance tolerance used to detect periodic orbits, periodicity isn't checked if it's 0
+     */
+    void getIterations(DoubleDouble left, double xOffset, DoubleDouble top, double yOffset, long maxIterations,
+                       long escapeRadius, double periodicityTolerance, MandelbrotSetFrame frame, int index) {
+        Pr.set(left).add(xOffset, 0);
+        Pi.set(top).add(yOffset, 0);
+        Zr.set(0, 0);
+        Zi.set(0, 0);
+        Zr2.set(0, 0);
+        Zi2.set(0, 0);
+        savedZr.set(0, 0);
+        savedZi.set(0, 0);
+        long checkInterval = 1;
+        long sinceSave = 0;
+        long n = 0;
+
+        // Mandelbrot set equation
+        for( ; n < maxIterations && Zr2.hi + Zi2.hi <= escapeRadius; ++n) {
+            Zi.multiply(Zr).twice().add(Pi);
+            Zr.set(Zr2).subtract(Zi2).add(Pr);
+            Zr2.set(Zr).square();
+            Zi2.set(Zi).square();
+
+            if(periodicityTolerance > 0) {
+                // Orbit came back to saved point so it is periodic and will never escape
+                if(Math.abs((Zr.hi - savedZr.hi) + (Zr.lo - savedZr.lo)) < periodicityTolerance
+                        && Math.abs((Zi.hi - savedZi.hi) + (Zi.lo - savedZi.lo)) < periodicityTolerance) {
+                    n = maxIterations;
+                    break;
+                }
+
+                if(++sinceSave == checkInterval) {
+                    savedZr.set(Zr);
+                    savedZi.set(Zi);
+                    sinceSave = 0;
+                    checkInterval <<= 1;
+                }
+            }
+        }
+
+        frame.set(index, (int) n, (float) (Zr2.hi + Zi2.hi));
+    }
+}
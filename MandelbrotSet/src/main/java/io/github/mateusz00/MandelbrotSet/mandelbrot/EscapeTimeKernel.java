@@ -0,0 +1,35 @@
+package io.github.mateusz00.MandelbrotSet.mandelbrot;
+
+/**
+ * Calculates iterations and escape values of pixels. Implementations are registered in KernelRegistry, which picks
+ * the fastest available kernel for every precision band.
+ */
+interface EscapeTimeKernel
+{
+    /**
+     * @return unique name used in logs and in settings file
+     */
+    String getName();
+
+    /**
+     * @return true if kernel can run on this JVM
+     */
+    boolean isAvailable();
+
+    /**
+     * @return true if kernel is precise enough for views of given precision band
+     */
+    boolean supports(PrecisionBand band);
+
+    /**
+     * Called once per frame before any line is generated
+     */
+    default void prepare(KernelParameters parameters) {
+    }
+
+    /**
+     * Calculates iterations and escape value for every pixel in range &lt;firstPixel, lastPixel) of line, or only for
+     * every n-th pixel when parameters have pixel step n. Can be called concurrently for different lines.
+     */
+    void generateLine(KernelParameters parameters, int firstPixel, int lastPixel, int line, MandelbrotSetFrame frame);
+}
@@ -0,0 +1,68 @@
+package io.github.mateusz00.MandelbrotSet.mandelbrot;
+
+/**
+ * Escape-time kernel iterating in single precision. It's only accurate enough for shallow views where pixel
+ * spacing is much bigger than float ulp of coordinates.
+ */
+class FloatKernel
+{
+    /**
+     * Calculates iterations and escape value for every pixelStep-th pixel in range &lt;firstPixel, lastPixel) of one
+     * line
+     * @param periodicityTolerance tolerance used to detect periodic orbits, periodicity isn't checked if it's 0
+     * @param lineOffset index of the first pixel of the line in frame
+     */
+    static void generateLine(double left, double xStep, double Pi, int firstPixel, int lastPixel, int pixelStep,
+                             long maxIterations, long escapeRadius, boolean cardioidCheck, double periodicityTolerance,
+                             MandelbrotSetFrame frame, int lineOffset) {
+        float ci = (float) Pi;
+        float tolerance = (float) periodicityTolerance;
+        boolean periodicityCheck = periodicityTolerance > 0;
+
+        for(int i = firstPixel; i < lastPixel; i += pixelStep) {
+            double Pr = left + xStep * i;
+
+            // Points inside main cardioid or period-2 bulb never escape so there's no need to iterate them
+            if(cardioidCheck && MandelbrotSetModel.isInMainCardioidOrBulb(Pr, Pi)) {
+                frame.set(lineOffset + i, (int) maxIterations, 0);
+                continue;
+            }
+
+            float cr = (float) Pr;
+            float Zr = 0;
+            float Zi = 0;
+            float Zr2 = 0;
+            float Zi2 = 0;
+            float savedZr = 0;
+            float savedZi = 0;
+            long checkInterval = 1;
+            long sinceSave = 0;
+            long n = 0;
+
+            // Mandelbrot set equation
+            for( ; n < maxIterations && Zr2+Zi2 <= escapeRadius; ++n) {
+                Zi = 2 * Zr * Zi + ci;
+                Zr = Zr2 - Zi2 + cr;
+                Zr2 = Zr * Zr;
+                Zi2 = Zi * Zi;
+
+                if(periodicityCheck) {
+                    // Orbit came back to saved point so it is periodic and will never escape
+                    if(Math.abs(Zr - savedZr) < tolerance && Math.abs(Zi - savedZi) < tolerance) {
+                        n = maxIterations;
+                        break;
+                    }
+
+                    if(++sinceSave == checkInterval) {
+                        savedZr = Zr;
+                        savedZi = Zi;
+                        sinceSave = 0;
+                        checkInterval <<= 1;
+                    }
+                }
+            }
+
+            frame.set(lineOffset + i, (int) n, Zr2 + Zi2);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package io.github.mateusz00.MandelbrotSet.mandelbrot;
+
+import java.awt.*;
+import java.util.Collections;
+import java.util.EventObject;
+import java.util.List;
+
+/**
+ * Describes how published frame differs from the previous one (version - 1). Pixel (x, y) outside of dirty regions
+ * has the same value as pixel (x + shift.x, y + shift.y) of previous frame, pixels in dirty regions were generated.
+ * Listener that didn't process previous frame has to process the whole frame.
+ */
+public class FrameEvent extends EventObject
+{
+    private final MandelbrotSetFrame frame;
+    private final long version;
+    private final Point shift;
+    private final List<Rectangle> dirtyRegions;
+
+    public FrameEvent(Object source, MandelbrotSetFrame frame, Point shift, List<Rectangle> dirtyRegions) {
+        super(source);
+        this.frame = frame;
+        this.version = frame.getVersion();
+        this.shift = new Point(shift);
+        this.dirtyRegions = Collections.unmodifiableList(dirtyRegions);
+    }
+
+    public MandelbrotSetFrame getFrame() {
+        return frame;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return how far (in pixels) content of previous frame was moved, (0, 0) if it wasn't
+     */
+    public Point getShift() {
+        return new Point(shift);
+    }
+
+    public List<Rectangle> getDirtyRegions() {
+        return dirtyRegions;
+    }
+
+    /**
+     * @return true if every pixel of the frame was generated
+     */
+    public boolean isFullFrame() {
+        return dirtyRegions.size() == 1 && dirtyRegions.get(0).width == frame.getWidth()
+                && dirtyRegions.get(0).height == frame.getHeight();
+    }
+}
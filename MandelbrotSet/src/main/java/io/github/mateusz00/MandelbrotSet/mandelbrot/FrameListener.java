@@ -0,0 +1,12 @@
+package io.github.mateusz00.MandelbrotSet.mandelbrot;
+
+import java.util.EventListener;
+
+/**
+ * Receives frames published by the model. Called on the thread that generated the frame.
+ */
+@FunctionalInterface
+public interface FrameListener extends EventListener
+{
+    void frameChanged(FrameEvent event);
+}
@@ -0,0 +1,218 @@
+package io.github.mateusz00.MandelbrotSet.mandelbrot;
+
+/**
+ * Scalar escape-time kernel which iterates LANES independent pixels interleaved in one loop, so that latency of
+ * floating point operations of one pixel is hidden behind the others. Escape condition is checked only after every
+ * block of BLOCK_ITERATIONS iterations. Pixel that escaped inside a block is rolled back to the state from the
+ * beginning of the block and iterated one step at a time to find exact iteration, so results are the same as of
+ * the simple loop. Periodic orbits are detected at block boundaries only.
+ * Requires escapeRadius &gt;= 4, because then escaped orbit can't come back inside the radius.
+ */
+class InterleavedKernel
+{
+    static final long MIN_ESCAPE_RADIUS = 4;
+    private static final int LANES = 4;
+    private static final int BLOCK_ITERATIONS = 8;
+    // Lane state is kept per thread, kernel is called for single pixels by subdivision and tracing render modes
+    private static final ThreadLocal<LaneState> LANE_STATE = ThreadLocal.withInitial(LaneState::new);
+
+    /**
+     * State of every lane between blocks
+     */
+    private static class LaneState
+    {
+        final int[] pixel = new int[LANES];
+        final double[] cr = new double[LANES];
+        final double[] zr = new double[LANES];
+        final double[] zi = new double[LANES];
+        final long[] n = new long[LANES];
+        final double[] savedZr = new double[LANES];
+        final double[] savedZi = new double[LANES];
+        final long[] savedN = new long[LANES];
+        final long[] checkInterval = new long[LANES];
+        final double[] blockZr = new double[LANES];
+        final double[] blockZi = new double[LANES];
+    }
+
+    /**
+     * Calculates iterations and escape value for every pixelStep-th pixel in range &lt;firstPixel, lastPixel) of one
+     * line
+     * @param periodicityTolerance tolerance used to detect periodic orbits, periodicity isn't checked if it's 0
+     * @param lineOffset index of the first pixel of the line in frame
+     */
+    static void generateLine(double left, double xStep, double Pi, int firstPixel, int lastPixel, int pixelStep,
+                             long maxIterations, long escapeRadius, boolean cardioidCheck, double periodicityTolerance,
+                             MandelbrotSetFrame frame, int lineOffset) {
+        final boolean periodicityCheck = periodicityTolerance > 0;
+
+        // Every lane is loaded before it's read, so state left by the previous line doesn't matter
+        LaneState state = LANE_STATE.get();
+        int[] pixel = state.pixel;
+        double[] cr = state.cr;
+        double[] zr = state.zr;
+        double[] zi = state.zi;
+        long[] n = state.n;
+        double[] savedZr = state.savedZr;
+        double[] savedZi = state.savedZi;
+        long[] savedN = state.savedN;
+        long[] checkInterval = state.checkInterval;
+        double[] blockZr = state.blockZr;
+        double[] blockZi = state.blockZi;
+
+        int next = firstPixel;
+        int busyLanes = 0;
+
+        for(int lane = 0; lane < LANES; ++lane) {
+            next = loadPixel(lane, next, lastPixel, pixelStep, left, xStep, Pi, maxIterations, cardioidCheck, frame,
+                    lineOffset, pixel, cr, zr, zi, n, savedZr, savedZi, savedN, checkInterval);
+
+            if(pixel[lane] >= 0)
+                ++busyLanes;
+        }
+
+        while(busyLanes > 0) {
+            // Block can't go past maxIterations of any busy lane
+            long steps = BLOCK_ITERATIONS;
+            for(int lane = 0; lane < LANES; ++lane) {
+                if(pixel[lane] >= 0)
+                    steps = Math.min(steps, maxIterations - n[lane]);
+            }
+
+            double cr0 = cr[0], cr1 = cr[1], cr2 = cr[2], cr3 = cr[3];
+            double zr0 = zr[0], zr1 = zr[1], zr2 = zr[2], zr3 = zr[3];
+            double zi0 = zi[0], zi1 = zi[1], zi2 = zi[2], zi3 = zi[3];
+            double zrSq0 = zr0 * zr0, zrSq1 = zr1 * zr1, zrSq2 = zr2 * zr2, zrSq3 = zr3 * zr3;
+            double ziSq0 = zi0 * zi0, ziSq1 = zi1 * zi1, ziSq2 = zi2 * zi2, ziSq3 = zi3 * zi3;
+
+            for(long i = 0; i < steps; ++i) {
+                zi0 = 2 * zr0 * zi0 + Pi;
+                zi1 = 2 * zr1 * zi1 + Pi;
+                zi2 = 2 * zr2 * zi2 + Pi;
+                zi3 = 2 * zr3 * zi3 + Pi;
+                zr0 = zrSq0 - ziSq0 + cr0;
+                zr1 = zrSq1 - ziSq1 + cr1;
+                zr2 = zrSq2 - ziSq2 + cr2;
+                zr3 = zrSq3 - ziSq3 + cr3;
+                zrSq0 = zr0 * zr0;
+                zrSq1 = zr1 * zr1;
+                zrSq2 = zr2 * zr2;
+                zrSq3 = zr3 * zr3;
+                ziSq0 = zi0 * zi0;
+                ziSq1 = zi1 * zi1;
+                ziSq2 = zi2 * zi2;
+                ziSq3 = zi3 * zi3;
+            }
+
+            blockZr[0] = zr0; blockZr[1] = zr1; blockZr[2] = zr2; blockZr[3] = zr3;
+            blockZi[0] = zi0; blockZi[1] = zi1; blockZi[2] = zi2; blockZi[3] = zi3;
+
+            for(int lane = 0; lane < LANES; ++lane) {
+                if(pixel[lane] < 0)
+                    continue;
+
+                double magnitude = blockZr[lane] * blockZr[lane] + blockZi[lane] * blockZi[lane];
+                boolean finished;
+
+                // Negated comparison also catches orbits that overflowed to NaN
+                if(!(magnitude <= escapeRadius)) {
+                    finished = true;
+                    rollBack(lane, steps, Pi, escapeRadius, cr, zr, zi, n, frame, lineOffset + pixel[lane]);
+                }
+                else {
+                    zr[lane] = blockZr[lane];
+                    zi[lane] = blockZi[lane];
+                    n[lane] += steps;
+                    finished = n[lane] >= maxIterations;
+
+                    if(!finished && periodicityCheck) {
+                        // Orbit came back to saved point so it is periodic and will never escape
+                        if(Math.abs(zr[lane] - savedZr[lane]) < periodicityTolerance
+                                && Math.abs(zi[lane] - savedZi[lane]) < periodicityTolerance) {
+                            n[lane] = maxIterations;
+                            finished = true;
+                        }
+                        else if(n[lane] - savedN[lane] >= checkInterval[lane]) {
+                            savedZr[lane] = zr[lane];
+                            savedZi[lane] = zi[lane];
+                            savedN[lane] = n[lane];
+                            checkInterval[lane] <<= 1;
+                        }
+                    }
+
+                    if(finished)
+                        frame.set(lineOffset + pixel[lane], (int) n[lane], (float) magnitude);
+                }
+
+                if(finished) {
+                    next = loadPixel(lane, next, lastPixel, pixelStep, left, xStep, Pi, maxIterations, cardioidCheck,
+                            frame, lineOffset, pixel, cr, zr, zi, n, savedZr, savedZi, savedN, checkInterval);
+
+                    if(pixel[lane] < 0)
+                        --busyLanes;
+                }
+            }
+        }
+    }
+
+    /**
+     * Repeats last block of lane one iteration at a time, starting from the state saved before the block, and stores
+     * exact iteration at which its pixel escaped
+     */
+    private static void rollBack(int lane, long steps, double Pi, long escapeRadius, double[] cr, double[] zr,
+                                 double[] zi, long[] n, MandelbrotSetFrame frame, int index) {
+        double Zr = zr[lane];
+        double Zi = zi[lane];
+        double Zr2 = Zr * Zr;
+        double Zi2 = Zi * Zi;
+        long iterations = n[lane];
+        long end = iterations + steps;
+
+        for( ; iterations < end && Zr2+Zi2 <= escapeRadius; ++iterations) {
+            Zi = 2 * Zr * Zi + Pi;
+            Zr = Zr2 - Zi2 + cr[lane];
+            Zr2 = Zr * Zr;
+            Zi2 = Zi * Zi;
+        }
+
+        frame.set(index, (int) iterations, (float) (Zr2+Zi2));
+    }
+
+    /**
+     * Loads next pixel which has to be iterated into lane. Pixels inside main cardioid or period-2 bulb are stored
+     * right away. Lane that can't get any pixel is marked with -1.
+     * @return index of the pixel that should be loaded next
+     */
+    private static int loadPixel(int lane, int next, int lastPixel, int pixelStep, double left, double xStep,
+                                 double Pi, long maxIterations, boolean cardioidCheck, MandelbrotSetFrame frame,
+                                 int lineOffset, int[] pixel, double[] cr, double[] zr, double[] zi, long[] n,
+                                 double[] savedZr, double[] savedZi, long[] savedN, long[] checkInterval) {
+        for( ; next < lastPixel; next += pixelStep) {
+            double Pr = left + xStep * next;
+
+            if(cardioidCheck && MandelbrotSetModel.isInMainCardioidOrBulb(Pr, Pi)) {
+                frame.set(lineOffset + next, (int) maxIterations, 0);
+                continue;
+            }
+
+            pixel[lane] = next;
+            cr[lane] = Pr;
+            zr[lane] = 0;
+            zi[lane] = 0;
+            n[lane] = 0;
+            savedZr[lane] = 0;
+            savedZi[lane] = 0;
+            savedN[lane] = 0;
+            checkInterval[lane] = BLOCK_ITERATIONS;
+
+            return next + pixelStep;
+        }
+
+        // Nothing left to load, lane keeps iterating point 0 which never escapes
+        pixel[lane] = -1;
+        cr[lane] = 0;
+        zr[lane] = 0;
+        zi[lane] = 0;
+
+        return next;
+    }
+}
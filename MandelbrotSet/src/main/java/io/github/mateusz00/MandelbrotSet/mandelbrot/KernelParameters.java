@@ -0,0 +1,150 @@
+package io.github.mateusz00.MandelbrotSet.mandelbrot;
+
+import java.math.BigDecimal;
+
+/**
+ * Immutable description of the view passed to escape-time kernels
+ */
+class KernelParameters
+{
+    private final int width;
+    private final BigDecimal centerX;
+    private final BigDecimal centerY;
+    private final double xRange;
+    private final double yRange;
+    private final double left;
+    private final double top;
+    private final double xStep;
+    private final double yStep;
+    private final long maxIterations;
+    private final long escapeRadius;
+    private final boolean cardioidCheck;
+    private final double periodicityTolerance;
+    private final int lineStride; // Distance between lines in frame, 0 when every line is written to the same buffer
+    private final int pixelStep; // Distance between calculated pixels of a line
+
+    /**
+     * @param width number of pixels in a line of frame
+     * @param periodicityTolerance tolerance used to detect periodic orbits, 0 disables periodicity check
+     */
+    KernelParameters(int width, BigDecimal centerX, BigDecimal centerY, double xRange, double yRange, double xStep,
+                     double yStep, long maxIterations, long escapeRadius, boolean cardioidCheck,
+                     double periodicityTolerance) {
+        this.width = width;
+        this.centerX = centerX;
+        this.centerY = centerY;
+        this.xRange = xRange;
+        this.yRange = yRange;
+        this.xStep = xStep;
+        this.yStep = yStep;
+        this.maxIterations = maxIterations;
+        this.escapeRadius = escapeRadius;
+        this.cardioidCheck = cardioidCheck;
+        this.periodicityTolerance = periodicityTolerance;
+        lineStride = width;
+        pixelStep = 1;
+        left = centerX.doubleValue() - xRange / 2.0;
+        top = centerY.doubleValue() - yRange / 2.0;
+    }
+
+    private KernelParameters(KernelParameters parameters, int lineStride, int pixelStep) {
+        width = parameters.width;
+        centerX = parameters.centerX;
+        centerY = parameters.centerY;
+        xRange = parameters.xRange;
+        yRange = parameters.yRange;
+        xStep = parameters.xStep;
+        yStep = parameters.yStep;
+        maxIterations = parameters.maxIterations;
+        escapeRadius = parameters.escapeRadius;
+        cardioidCheck = parameters.cardioidCheck;
+        periodicityTolerance = parameters.periodicityTolerance;
+        left = parameters.left;
+        top = parameters.top;
+        this.lineStride = lineStride;
+        this.pixelStep = pixelStep;
+    }
+
+    /**
+     * @return the same view whose lines are written to a frame holding a single line
+     */
+    KernelParameters withLineBuffer() {
+        return new KernelParameters(this, 0, pixelStep);
+    }
+
+    /**
+     * @return the same view of which only every pixelStep-th pixel of a line is calculated
+     */
+    KernelParameters withPixelStep(int pixelStep) {
+        return new KernelParameters(this, lineStride, pixelStep);
+    }
+
+    int getWidth() {
+        return width;
+    }
+
+    BigDecimal getCenterX() {
+        return centerX;
+    }
+
+    BigDecimal getCenterY() {
+        return centerY;
+    }
+
+    double getXRange() {
+        return xRange;
+    }
+
+    double getYRange() {
+        return yRange;
+    }
+
+    /**
+     * @return real part of the left-most pixels
+     */
+    double getLeft() {
+        return left;
+    }
+
+    /**
+     * @return imaginary part of given line
+     */
+    double getImaginary(int line) {
+        return top + yStep * line;
+    }
+
+    double getXStep() {
+        return xStep;
+    }
+
+    double getYStep() {
+        return yStep;
+    }
+
+    long getMaxIterations() {
+        return maxIterations;
+    }
+
+    long getEscapeRadius() {
+        return escapeRadius;
+    }
+
+    boolean isCardioidCheckEnabled() {
+        return cardioidCheck;
+    }
+
+    double getPeriodicityTolerance() {
+        return periodicityTolerance;
+    }
+
+    int getPixelStep() {
+        return pixelStep;
+    }
+
+    /**
+     * @return index of the first pixel of line in frame
+     */
+    int getLineOffset(int line) {
+        return line * lineStride;
+    }
+}
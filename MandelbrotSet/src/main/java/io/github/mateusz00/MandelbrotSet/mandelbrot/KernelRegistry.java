@@ -0,0 +1,241 @@
+package io.github.mateusz00.MandelbrotSet.mandelbrot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Holds escape-time kernels and decides which one is used for every precision band. By default it's the kernel that
+ * was the fastest during calibration, but it can be overridden by name. Until calibration finishes the first
+ * registered kernel that supports the band is used. Every kernel is warmed up before it's timed, so JIT compiled
+ * code is compared, and median of several rounds is used, so frames rendered meanwhile don't change the choice.
+ */
+class KernelRegistry
+{
+    static final String AUTO = "auto"; // Override value meaning that calibrated kernel is used
+    private static final Logger LOGGER = LoggerFactory.getLogger(KernelRegistry.class);
+    private static final int SAMPLE_WIDTH = 256;
+    private static final int SAMPLE_HEIGHT = 16;
+    private static final int WARMUP_RENDERS = 100; // Renders of sample before kernel is compiled by JIT
+    private static final long MAX_WARMUP_NANOS = 2_000_000_000; // Slow interpreted kernels are compiled sooner
+    private static final int MEASURED_ROUNDS = 9; // Odd, so median is one of the measurements
+    private final List<Supplier<? extends EscapeTimeKernel>> factories = new ArrayList<>();
+    private final List<EscapeTimeKernel> kernels = new ArrayList<>();
+    private final Map<PrecisionBand, EscapeTimeKernel> calibrated = new EnumMap<>(PrecisionBand.class);
+    private final Map<PrecisionBand, EscapeTimeKernel> overrides = new EnumMap<>(PrecisionBand.class);
+
+    KernelRegistry() {
+        for(Supplier<? extends EscapeTimeKernel> factory : BuiltInKernels.factories())
+            register(factory);
+
+        for(PrecisionBand band : PrecisionBand.values()) {
+            List<EscapeTimeKernel> candidates = getCandidates(kernels, band);
+
+            if(candidates.isEmpty())
+                throw new IllegalStateException("No kernel supports " + band + " precision");
+
+            calibrated.put(band, candidates.get(0));
+        }
+    }
+
+    /**
+     * Adds kernel that will take part in calibration, it has to be registered before calibration starts.
+     * Calibration runs concurrently with rendering, so it uses its own instance of every kernel.
+     * @param factory creates new instances of kernel, names of kernels have to be unique
+     */
+    synchronized void register(Supplier<? extends EscapeTimeKernel> factory) {
+        EscapeTimeKernel kernel = factory.get();
+
+        if(findKernel(kernel.getName()) != null)
+            throw new IllegalArgumentException("Kernel " + kernel.getName() + " is already registered");
+
+        factories.add(factory);
+        kernels.add(kernel);
+    }
+
+    /**
+     * Starts low priority thread which times every available kernel on a sample view of each precision band and
+     * selects the fastest one
+     */
+    void calibrateInBackground() {
+        Thread thread = new Thread(this::calibrate, "kernel-calibration");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    private void calibrate() {
+        List<EscapeTimeKernel> instances = new ArrayList<>();
+
+        synchronized(this) {
+            for(Supplier<? extends EscapeTimeKernel> factory : factories)
+                instances.add(factory.get());
+        }
+
+        for(PrecisionBand band : PrecisionBand.values()) {
+            List<EscapeTimeKernel> candidates = getCandidates(instances, band);
+
+            // There is nothing to compare
+            if(candidates.size() == 1) {
+                LOGGER.info("{} precision: using {} kernel", band, candidates.get(0).getName());
+                continue;
+            }
+
+            KernelParameters sample = createSample(band);
+            MandelbrotSetFrame frame = new MandelbrotSetFrame(SAMPLE_WIDTH, SAMPLE_HEIGHT);
+            long[][] rounds = new long[candidates.size()][MEASURED_ROUNDS];
+            long[] times = new long[candidates.size()];
+
+            for(EscapeTimeKernel candidate : candidates)
+                warmUp(candidate, sample, frame);
+
+            // Kernels take turns, so load of other threads affects all of them alike
+            for(int round = 0; round < MEASURED_ROUNDS; ++round) {
+                for(int i = 0; i < candidates.size(); ++i)
+                    rounds[i][round] = measure(candidates.get(i), sample, frame);
+            }
+
+            for(int i = 0; i < candidates.size(); ++i) {
+                Arrays.sort(rounds[i]);
+                times[i] = rounds[i][MEASURED_ROUNDS / 2];
+            }
+
+            EscapeTimeKernel fastest = null;
+            long fastestTime = Long.MAX_VALUE;
+            StringBuilder timings = new StringBuilder();
+
+            for(int i = 0; i < candidates.size(); ++i) {
+                timings.append(String.format(" %s=%.2fms", candidates.get(i).getName(), times[i] / 1e6));
+
+                if(times[i] < fastestTime) {
+                    fastestTime = times[i];
+                    fastest = candidates.get(i);
+                }
+            }
+
+            synchronized(this) {
+                calibrated.put(band, findKernel(fastest.getName()));
+            }
+
+            LOGGER.info("{} precision: using {} kernel (calibration:{})", band, fastest.getName(), timings);
+        }
+    }
+
+    /**
+     * Renders sample until kernel is compiled by JIT, calibration runs on spare core (render pool leaves one by
+     * default), so it doesn't slow the first frames down much
+     */
+    private void warmUp(EscapeTimeKernel kernel, KernelParameters sample, MandelbrotSetFrame frame) {
+        long start = System.nanoTime();
+
+        for(int i = 0; i < WARMUP_RENDERS && System.nanoTime() - start < MAX_WARMUP_NANOS; ++i)
+            render(kernel, sample, frame);
+    }
+
+    /**
+     * @return time of kernel rendering whole sample
+     */
+    private long measure(EscapeTimeKernel kernel, KernelParameters sample, MandelbrotSetFrame frame) {
+        long start = System.nanoTime();
+        render(kernel, sample, frame);
+        return System.nanoTime() - start;
+    }
+
+    private void render(EscapeTimeKernel kernel, KernelParameters sample, MandelbrotSetFrame frame) {
+        kernel.prepare(sample);
+
+        for(int y = 0; y < SAMPLE_HEIGHT; ++y)
+            kernel.generateLine(sample, 0, SAMPLE_WIDTH, y, frame);
+    }
+
+    /**
+     * @return view typical for given precision band
+     */
+    private static KernelParameters createSample(PrecisionBand band) {
+        // Seahorse valley has both fast escaping pixels and pixels needing many iterations
+        BigDecimal centerX = new BigDecimal("-0.7453");
+        BigDecimal centerY = new BigDecimal("0.1127");
+        double xRange;
+        long maxIterations;
+
+        if(band == PrecisionBand.FLOAT || band == PrecisionBand.DOUBLE) {
+            xRange = 0.01;
+            maxIterations = 1000;
+        }
+        else {
+            xRange = band == PrecisionBand.DOUBLE_DOUBLE ? 1e-13 : 1e-20;
+            maxIterations = 2000;
+        }
+
+        double step = xRange / SAMPLE_WIDTH;
+        double yRange = step * SAMPLE_HEIGHT;
+
+        return new KernelParameters(SAMPLE_WIDTH, centerX, centerY, xRange, yRange, step, step, maxIterations,
+                40, true, step * 1e-3);
+    }
+
+    private static List<EscapeTimeKernel> getCandidates(List<EscapeTimeKernel> kernels, PrecisionBand band) {
+        List<EscapeTimeKernel> candidates = new ArrayList<>();
+
+        for(EscapeTimeKernel kernel : kernels) {
+            if(kernel.isAvailable() && kernel.supports(band))
+                candidates.add(kernel);
+        }
+
+        return candidates;
+    }
+
+    private synchronized EscapeTimeKernel findKernel(String name) {
+        for(EscapeTimeKernel kernel : kernels) {
+            if(kernel.getName().equals(name))
+                return kernel;
+        }
+
+        return null;
+    }
+
+    /**
+     * @return kernel that should be used for given precision band
+     */
+    synchronized EscapeTimeKernel getKernel(PrecisionBand band) {
+        EscapeTimeKernel kernel = overrides.get(band);
+        return kernel != null ? kernel : calibrated.get(band);
+    }
+
+    /**
+     * @return name of kernel forced for given precision band or AUTO if calibrated kernel is used
+     */
+    synchronized String getOverride(PrecisionBand band) {
+        EscapeTimeKernel kernel = overrides.get(band);
+        return kernel != null ? kernel.getName() : AUTO;
+    }
+
+    /**
+     * Forces kernel with given name to be used for precision band. AUTO (or kernel that can't be used for that band)
+     * restores calibrated kernel.
+     */
+    synchronized void setOverride(PrecisionBand band, String name) {
+        if(AUTO.equals(name)) {
+            overrides.remove(band);
+            return;
+        }
+
+        EscapeTimeKernel kernel = findKernel(name);
+
+        if(kernel == null || !kernel.isAvailable() || !kernel.supports(band)) {
+            LOGGER.warn("Kernel {} can't be used for {} precision, using calibrated kernel", name, band);
+            overrides.remove(band);
+            return;
+        }
+
+        overrides.put(band, kernel);
+        LOGGER.info("{} precision: using {} kernel (set in settings)", band, name);
+    }
+}
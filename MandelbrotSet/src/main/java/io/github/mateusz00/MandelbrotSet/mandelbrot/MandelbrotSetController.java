@@ -1,15 +1,14 @@
 package io.github.mateusz00.MandelbrotSet.mandelbrot;
 
 import io.github.mateusz00.MandelbrotSet.RGBPickers.RGBPicker;
-import io.github.mateusz00.MandelbrotSet.utilities.Procedure;
 import io.github.mateusz00.MandelbrotSet.utilities.Utility;
 
 import java.awt.*;
 import java.awt.geom.Point2D;
 import java.awt.image.BufferedImage;
 import java.io.*;
+import java.math.BigDecimal;
 import java.util.Properties;
-import java.util.concurrent.locks.ReentrantLock;
 
 public class MandelbrotSetController implements MandelbrotSetControls
 {
@@ -19,12 +18,20 @@ public class MandelbrotSetController implements MandelbrotSetControls
     private double zoomStep = DEFAULT_ZOOM_STEP;
     private MandelbrotSetModel model;
     private MandelbrotSetView view;
-    private final ReentrantLock lock = new ReentrantLock();
+    private final Object navigationLock = new Object();
+    private final Thread navigationThread = new Thread(this::processNavigation, "mandelbrot-navigation");
+    private boolean navigationPending = false; // Fields below hold navigation that wasn't applied yet
+    private double pendingMoveX = 0; // In pixels of the view from before pending zoom
+    private double pendingMoveY = 0;
+    private double pendingZoom = 1;
 
     public MandelbrotSetController(MandelbrotSetModel model) {
         this.model = model;
         MOVE_PIXELS_X = (int) (model.getSize().width * 0.02);
         MOVE_PIXELS_Y = (int) (model.getSize().height * 0.02);
+
+        navigationThread.setDaemon(true);
+        navigationThread.start();
     }
 
     public void setView(MandelbrotSetView view){
@@ -36,28 +43,57 @@ public class MandelbrotSetController implements MandelbrotSetControls
             this.view = null;
     }
 
-    private void tryAction(Procedure procedure) {
-        // Ensures that threads won't queue (makes app more responsive)
-        if(!lock.isLocked()) {
-            new Thread(() -> {
-                if(lock.tryLock()) {
-                    try {
-                        procedure.call();
-                    }
-                    finally {
-                        lock.unlock();
-                    }
+    /**
+     * Adds move and zoom to navigation that wasn't applied yet. Navigation thread applies all of it at once and
+     * generates only the latest view, frame that is being generated is aborted as it's already stale.
+     * @param changeVector move in pixels of the current view, applied before zoom
+     */
+    private void scheduleNavigation(Point changeVector, double zoom) {
+        synchronized(navigationLock) {
+            // Cancel before navigation thread is woken up, so it can't abort generation of this navigation
+            model.cancelGeneration();
+
+            // Pixels of the current view are smaller/bigger by pending zoom than pixels of the view it's applied to
+            pendingMoveX += changeVector.x / pendingZoom;
+            pendingMoveY += changeVector.y / pendingZoom;
+            pendingZoom *= zoom;
+            navigationPending = true;
+            navigationLock.notifyAll();
+        }
+    }
+
+    private void processNavigation() {
+        while(true) {
+            Point2D.Double changeVector;
+            double zoom;
+
+            synchronized(navigationLock) {
+                try {
+                    while(!navigationPending)
+                        navigationLock.wait();
+                }
+                catch(InterruptedException e) {
+                    return;
                 }
-            }).start();
+
+                changeVector = new Point2D.Double(pendingMoveX, pendingMoveY);
+                zoom = pendingZoom;
+                pendingMoveX = 0;
+                pendingMoveY = 0;
+                pendingZoom = 1;
+                navigationPending = false;
+            }
+
+            model.moveCenterAndZoom(changeVector, zoom);
         }
     }
 
     private void tryMoving(Point changeVector) {
-        tryAction(() -> model.moveCenter(changeVector));
+        scheduleNavigation(changeVector, 1);
     }
 
     private void tryZooming(double zoom) {
-        tryAction(() -> model.zoom(zoom));
+        scheduleNavigation(new Point(), zoom);
     }
 
     @Override
@@ -87,8 +123,10 @@ public class MandelbrotSetController implements MandelbrotSetControls
         if(Utility.vectorLength(change) > 0) {
             if(!allowQueuing)
                 tryMoving(change);
-            else
+            else {
+                model.cancelGeneration();
                 model.moveCenter(change);
+            }
         }
     }
 
@@ -100,13 +138,45 @@ public class MandelbrotSetController implements MandelbrotSetControls
     /**
      * Zooms in or out depending on zoomChange value
      * @param zoom zooms in or out. Allowed range is (0, infinity>
-     * @param allowQueuing enables/disables queuing of threads. Disable to make app more responsive
+     * @param allowQueuing true to zoom synchronously, false to schedule zoom (it's merged with other navigation
+     *                     that wasn't applied yet, which makes app more responsive)
      */
     public void zoom(double zoom, boolean allowQueuing) {
         if(!allowQueuing)
             tryZooming(zoom);
-        else
+        else {
+            model.cancelGeneration();
             model.zoom(zoom);
+        }
+    }
+
+    /**
+     * Schedules zoom into area of the view, it's merged with other navigation that wasn't applied yet like keyboard
+     * and mouse input, so the set is generated only once
+     * @param areaCenter center of area in pixels
+     * @param zoom how many times area is smaller than the view
+     */
+    public void zoomToArea(Point areaCenter, double zoom) {
+        Point center = new Point(model.getSize().width / 2, model.getSize().height / 2);
+        scheduleNavigation(new Point(areaCenter.x - center.x, areaCenter.y - center.y), zoom);
+    }
+
+    /**
+     * Sets size, center, ranges and max iterations at once and generates the set only once
+     * @return false if generation was cancelled
+     * @throws IllegalArgumentException if viewport is invalid
+     */
+    public boolean setViewport(Dimension size, BigDecimal centerX, BigDecimal centerY, double xRange, double yRange,
+                               long maxIterations) {
+        model.cancelGeneration();
+        return model.setViewport(size, centerX, centerY, xRange, yRange, maxIterations);
+    }
+
+    /**
+     * @throws IllegalArgumentException if viewport is invalid
+     */
+    public void validateViewport(Dimension size, double xRange, double yRange, long maxIterations) {
+        MandelbrotSetModel.validateViewport(size, xRange, yRange, maxIterations);
     }
 
     @Override
@@ -135,6 +205,20 @@ public class MandelbrotSetController implements MandelbrotSetControls
         model.setCenter(center);
     }
 
+    /**
+     * @return exact x coordinate of center, getCenter holds its rounded value
+     */
+    public BigDecimal getPreciseCenterX() {
+        return model.getPreciseCenterX();
+    }
+
+    /**
+     * @return exact y coordinate of center, getCenter holds its rounded value
+     */
+    public BigDecimal getPreciseCenterY() {
+        return model.getPreciseCenterY();
+    }
+
     public long getEscapeRadius() {
         return model.getEscapeRadius();
     }
@@ -179,8 +263,18 @@ public class MandelbrotSetController implements MandelbrotSetControls
         view.setColoring(rgb);
     }
 
-    public void generateNewSet() {
-        model.generate();
+    /**
+     * @return false if generation was cancelled
+     */
+    public boolean generateNewSet() {
+        return model.generate();
+    }
+
+    /**
+     * Aborts generation in progress, used by navigation and by export tasks that were cancelled
+     */
+    public void cancelGeneration() {
+        model.cancelGeneration();
     }
 
     /**
@@ -190,6 +284,37 @@ public class MandelbrotSetController implements MandelbrotSetControls
         return view.getBufferedImage();
     }
 
+    /**
+     * Applies viewport without generating the set of the main window and renders it in given size straight to
+     * a new image with current coloring
+     * @return null if generation was cancelled
+     * @throws IllegalArgumentException if viewport is invalid
+     */
+    public BufferedImage renderImage(Dimension size, BigDecimal centerX, BigDecimal centerY, double xRange,
+                                     double yRange, long maxIterations) {
+        MandelbrotSetModel.validateViewport(size, xRange, yRange, maxIterations);
+        model.cancelGeneration();
+        model.applyViewport(centerX, centerY, xRange, yRange, maxIterations);
+
+        BufferedImage image = new BufferedImage(size.width, size.height, BufferedImage.TYPE_INT_RGB);
+        return renderImage(image) ? image : null;
+    }
+
+    /**
+     * Zooms without generating the set of the main window and renders it straight to image with current coloring
+     * @return false if generation was cancelled
+     */
+    public boolean renderZoomedImage(double zoom, BufferedImage image) {
+        model.cancelGeneration();
+        model.applyZoom(zoom);
+
+        return renderImage(image);
+    }
+
+    private boolean renderImage(BufferedImage image) {
+        return model.renderImage(image, view.getRGBPicker(), view.isSmoothColoringEnabled());
+    }
+
     public double getZoomStep() {
         return zoomStep;
     }
@@ -214,6 +339,69 @@ public class MandelbrotSetController implements MandelbrotSetControls
         view.setSmoothColoring(flag);
     }
 
+    public boolean isCardioidCheckEnabled() {
+        return model.isCardioidCheckEnabled();
+    }
+
+    public void setCardioidCheck(boolean flag) {
+        model.setCardioidCheck(flag);
+    }
+
+    public boolean isPeriodicityCheckEnabled() {
+        return model.isPeriodicityCheckEnabled();
+    }
+
+    public void setPeriodicityCheck(boolean flag) {
+        model.setPeriodicityCheck(flag);
+    }
+
+    public RenderMode getRenderMode() {
+        return model.getRenderMode();
+    }
+
+    public void setRenderMode(RenderMode renderMode) {
+        model.setRenderMode(renderMode);
+    }
+
+    public boolean isSinglePrecisionEnabled() {
+        return model.isSinglePrecisionEnabled();
+    }
+
+    public void setSinglePrecision(boolean flag) {
+        model.setSinglePrecision(flag);
+    }
+
+    public int getRenderThreads() {
+        return model.getRenderThreads();
+    }
+
+    public void setRenderThreads(int threads) {
+        model.setRenderThreads(threads);
+    }
+
+    public int getRenderThreadPriority() {
+        return model.getRenderThreadPriority();
+    }
+
+    public void setRenderThreadPriority(int priority) {
+        model.setRenderThreadPriority(priority);
+    }
+
+    /**
+     * Stops navigation and render threads, should be called before application exits. Waits for render threads in
+     * background, so it can be called from the event dispatch thread.
+     * @param onStopped called by the waiting thread when render threads stopped (or waiting timed out)
+     */
+    public void shutdown(Runnable onStopped) {
+        navigationThread.interrupt();
+        model.cancelGeneration();
+
+        new Thread(() -> {
+            model.shutdown();
+            onStopped.run();
+        }, "mandelbrot-shutdown").start();
+    }
+
     public void restoreDefaultSettings() {
         model.restoreDefaultSettings();
         view.restoreDefaultSettings();
@@ -224,13 +412,22 @@ public class MandelbrotSetController implements MandelbrotSetControls
         Properties save = new Properties();
         save.setProperty("maxIterations", String.valueOf(model.getMaxIterations()));
         save.setProperty("escapeRadius", String.valueOf(model.getEscapeRadius()));
-        save.setProperty("centerX", String.valueOf(model.getCenter().getX()));
-        save.setProperty("centerY", String.valueOf(model.getCenter().getY()));
+        save.setProperty("centerX", model.getPreciseCenterX().toString());
+        save.setProperty("centerY", model.getPreciseCenterY().toString());
         save.setProperty("maxIterationsMultiplier", String.valueOf(model.getMaxIterationsMultiplier()));
         save.setProperty("xRange", String.valueOf(model.getXRange()));
         save.setProperty("yRange", String.valueOf(model.getYRange()));
         save.setProperty("zoomStep", String.valueOf(zoomStep));
         save.setProperty("smoothColoring", String.valueOf(view.isSmoothColoringEnabled()));
+        save.setProperty("cardioidCheck", String.valueOf(model.isCardioidCheckEnabled()));
+        save.setProperty("periodicityCheck", String.valueOf(model.isPeriodicityCheckEnabled()));
+        save.setProperty("renderMode", model.getRenderMode().name());
+        save.setProperty("singlePrecision", String.valueOf(model.isSinglePrecisionEnabled()));
+        save.setProperty("renderThreads", String.valueOf(model.getRenderThreads()));
+        save.setProperty("renderThreadPriority", String.valueOf(model.getRenderThreadPriority()));
+
+        for(PrecisionBand band : PrecisionBand.values())
+            save.setProperty("kernel." + band.name(), model.getKernelOverride(band));
 
         try {
             save.store(new FileOutputStream(file), "");
@@ -256,8 +453,8 @@ public class MandelbrotSetController implements MandelbrotSetControls
             e.printStackTrace();
         }
 
-        double centerX = Double.parseDouble(load.getProperty("centerX"));
-        double centerY = Double.parseDouble(load.getProperty("centerY"));
+        BigDecimal centerX = new BigDecimal(load.getProperty("centerX"));
+        BigDecimal centerY = new BigDecimal(load.getProperty("centerY"));
 
         setZoomStep(Double.parseDouble(load.getProperty("zoomStep")));
         model.setMaxIterations(Long.parseLong(load.getProperty("maxIterations")));
@@ -265,8 +462,20 @@ public class MandelbrotSetController implements MandelbrotSetControls
         model.setMaxIterationsMultiplier(Double.parseDouble(load.getProperty("maxIterationsMultiplier")));
         model.setXRange(Double.parseDouble(load.getProperty("xRange")));
         model.setYRange(Double.parseDouble(load.getProperty("yRange")));
-        model.setCenter(new Point2D.Double(centerX, centerY));
+        model.setCenter(centerX, centerY);
         view.setSmoothColoring(Boolean.parseBoolean(load.getProperty("smoothColoring")));
+        model.setCardioidCheck(Boolean.parseBoolean(load.getProperty("cardioidCheck", "true")));
+        model.setPeriodicityCheck(Boolean.parseBoolean(load.getProperty("periodicityCheck", "true")));
+        model.setRenderMode(RenderMode.valueOf(load.getProperty("renderMode", RenderMode.BRUTE_FORCE.name())));
+        model.setSinglePrecision(Boolean.parseBoolean(load.getProperty("singlePrecision", "false")));
+
+        if(load.getProperty("renderThreads") != null)
+            model.setRenderThreads(Integer.parseInt(load.getProperty("renderThreads")));
+        if(load.getProperty("renderThreadPriority") != null)
+            model.setRenderThreadPriority(Integer.parseInt(load.getProperty("renderThreadPriority")));
+
+        for(PrecisionBand band : PrecisionBand.values())
+            model.setKernelOverride(band, load.getProperty("kernel." + band.name(), KernelRegistry.AUTO));
     }
 
     public void setMandelbrotSize(Dimension size) {
@@ -0,0 +1,173 @@
+package io.github.mateusz00.MandelbrotSet.mandelbrot;
+
+import java.awt.*;
+import java.util.Arrays;
+
+/**
+ * Frame buffer holding iterations and escape values of every pixel in two primitive arrays (row-major order),
+ * so that storing and reading results doesn't allocate anything per pixel. Model renders into a back buffer and
+ * publishes it when it's complete, published frame isn't modified until it's recycled two frames later.
+ * Arrays are addressed toroidally from an origin, so moving the content only moves the origin. Indexes used by
+ * public methods are always y * width + x of the visible pixel.
+ */
+public class MandelbrotSetFrame
+{
+    private final int width;
+    private final int height;
+    private final int[] iterations;
+    private final float[] escapeValues;
+    private volatile long version = -1; // -1 while frame is being rendered
+    private long maxIterations;
+    private KernelParameters parameters; // View the frame was rendered for, null until it's published
+    private int originX = 0; // Position of the top-left pixel in arrays
+    private int originY = 0;
+
+    public MandelbrotSetFrame(int width, int height) {
+        this.width = width;
+        this.height = height;
+        iterations = new int[width * height];
+        escapeValues = new float[width * height];
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return number of published frame (increases with every frame) or -1 if frame is being rendered
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return max iterations used to render this frame
+     */
+    public long getMaxIterations() {
+        return maxIterations;
+    }
+
+    void publish(long version, KernelParameters parameters) {
+        this.parameters = parameters;
+        maxIterations = parameters.getMaxIterations();
+        this.version = version;
+    }
+
+    KernelParameters getParameters() {
+        return parameters;
+    }
+
+    /**
+     * Marks frame as being rendered again, readers that still hold it can notice that with getVersion
+     */
+    void retire() {
+        version = -1;
+    }
+
+    public int getSize() {
+        return iterations.length;
+    }
+
+    public int getIterations(int index) {
+        return iterations[toArrayIndex(index)];
+    }
+
+    public float getEscapeValue(int index) {
+        return escapeValues[toArrayIndex(index)];
+    }
+
+    public void set(int index, int iterations, float escapeValue) {
+        int arrayIndex = toArrayIndex(index);
+        this.iterations[arrayIndex] = iterations;
+        this.escapeValues[arrayIndex] = escapeValue;
+    }
+
+    /**
+     * Sets the same iterations and escape value for pixels in range &lt;fromIndex, toIndex)
+     */
+    public void fill(int fromIndex, int toIndex, int iterations, float escapeValue) {
+        while(fromIndex < toIndex) {
+            // Fill up to the end of the line or the end of the array line, whichever comes first
+            int x = fromIndex % width;
+            int length = Math.min(toIndex - fromIndex, Math.min(width - x, width - wrapX(x)));
+            int arrayIndex = toArrayIndex(fromIndex);
+
+            Arrays.fill(this.iterations, arrayIndex, arrayIndex + length, iterations);
+            Arrays.fill(this.escapeValues, arrayIndex, arrayIndex + length, escapeValue);
+            fromIndex += length;
+        }
+    }
+
+    /**
+     * Moves the content by changing origin only, so pixel (x, y) gets value of pixel (x + xShift, y + yShift).
+     * Pixels that have no counterpart hold values of pixels from the opposite side.
+     */
+    public void moveOrigin(int xShift, int yShift) {
+        originX = Math.floorMod(originX + xShift, width);
+        originY = Math.floorMod(originY + yShift, height);
+    }
+
+    /**
+     * Copies whole content of source, both frames have to be the same size
+     */
+    public void copyFrom(MandelbrotSetFrame source) {
+        System.arraycopy(source.iterations, 0, iterations, 0, iterations.length);
+        System.arraycopy(source.escapeValues, 0, escapeValues, 0, escapeValues.length);
+        originX = source.originX;
+        originY = source.originY;
+    }
+
+    /**
+     * Copies pixels inside region from source, both frames have to be the same size
+     */
+    public void copyRegion(MandelbrotSetFrame source, Rectangle region) {
+        for(int y = region.y; y < region.y + region.height; ++y) {
+            for(int x = region.x; x < region.x + region.width; ++x) {
+                int index = y * width + x;
+                int srcIndex = source.toArrayIndex(index);
+                int dstIndex = toArrayIndex(index);
+
+                iterations[dstIndex] = source.iterations[srcIndex];
+                escapeValues[dstIndex] = source.escapeValues[srcIndex];
+            }
+        }
+    }
+
+    /**
+     * Content is rewritten anyway, so addressing can be made linear again
+     */
+    void resetOrigin() {
+        originX = 0;
+        originY = 0;
+    }
+
+    private int toArrayIndex(int index) {
+        if(originX == 0 && originY == 0)
+            return index;
+
+        int y = index / width;
+        int x = index - y * width;
+        int arrayY = y + originY;
+
+        if(arrayY >= height)
+            arrayY -= height;
+
+        return arrayY * width + wrapX(x);
+    }
+
+    private int wrapX(int x) {
+        int arrayX = x + originX;
+        return arrayX >= width ? arrayX - width : arrayX;
+    }
+
+    /**
+     * @return true if frame has the same dimensions as given size
+     */
+    public boolean hasSize(int width, int height) {
+        return this.width == width && this.height == height;
+    }
+}
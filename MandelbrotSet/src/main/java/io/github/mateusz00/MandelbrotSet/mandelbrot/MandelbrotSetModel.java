@@ -1,36 +1,92 @@
 package io.github.mateusz00.MandelbrotSet.mandelbrot;
 
+import io.github.mateusz00.MandelbrotSet.RGBPickers.Palette;
+import io.github.mateusz00.MandelbrotSet.RGBPickers.RGBPicker;
+
 import java.awt.*;
+import java.awt.geom.AffineTransform;
 import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
+import java.math.BigDecimal;
+import java.math.MathContext;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Observable;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntConsumer;
 
-public class MandelbrotSetModel extends Observable
+public class MandelbrotSetModel
 {
     private PropertyChangeSupport propertyChangeSupport = new PropertyChangeSupport(this);
-    private ArrayList<MandelbrotSetResult> results;
+    private final List<FrameListener> frameListeners = new CopyOnWriteArrayList<>();
+    private MandelbrotSetFrame results; // Back buffer, frame that is being generated
+    private final AtomicReference<MandelbrotSetFrame> publishedFrame = new AtomicReference<>();
+    private MandelbrotSetFrame retiredFrame; // Frame published before current one, becomes the next back buffer
+    private long backBufferVersion = -1; // Version of published frame whose content back buffer holds
+    private Point publishedShift = new Point(); // How published frame differs from the previous one
+    private List<Rectangle> publishedDirtyRegions = Collections.emptyList();
+    private Point previousShift = new Point(); // How previous frame differs from the one before it (back buffer)
+    private List<Rectangle> previousDirtyRegions = Collections.emptyList();
+    private long fullCopies = 0; // Number of times back buffer was brought up to date by copying the whole frame
+    private long frameVersion = 0;
     private static final long DEFAULT_MAX_ITERATIONS = 250;
     private static final long DEFAULT_ESCAPE_RADIUS = 40;
     private static final double DEFAULT_X_RANGE = 3.4;
     private static final double DEFAULT_Y_RANGE = 2.6;
     private static final double DEFAULT_CENTER_X = -0.5;
     private static final double DEFAULT_CENTER_Y = 0.1;
+    private static final boolean DEFAULT_CARDIOID_CHECK = true;
+    private static final boolean DEFAULT_PERIODICITY_CHECK = true;
+    private static final double PERIODICITY_TOLERANCE = 1e-3; // Fraction of pixel spacing
+    private static final RenderMode DEFAULT_RENDER_MODE = RenderMode.BRUTE_FORCE;
+    private static final int MIN_SUBDIVISION_SIZE = 8; // Rectangles smaller than that are calculated pixel by pixel
+    private static final int LINES_PER_TASK = 16; // Lines processed by forEachLine without splitting the task
+    private static final int PROGRESSIVE_BLOCK_SIZE = 4; // Block of the first pass, it calculates 1/16 of pixels
+    private static final long PROGRESSIVE_MIN_REMAINING_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final boolean DEFAULT_SINGLE_PRECISION = false; // Floats change iterations of a few pixels
+    private static final double FLOAT_PRECISION_LIMIT = 8192; // Minimal pixel spacing (in float ulps) for floats
+    private static final long FLOAT_MAX_ITERATIONS = 2048; // Rounding errors grow with every iteration
+    private static final double DOUBLE_PRECISION_LIMIT = 256; // Minimal pixel spacing (in ulps) for double precision
+    private static final double DOUBLE_DOUBLE_PRECISION_LIMIT = DOUBLE_PRECISION_LIMIT * 0x1p-53; // In double ulps
+    private static final int DEFAULT_RENDER_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    private static final int MAX_RENDER_THREADS = 256;
+    private static final int DEFAULT_RENDER_THREAD_PRIORITY = Thread.NORM_PRIORITY;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 5;
     private long maxIterations = DEFAULT_MAX_ITERATIONS;
     private long escapeRadius = DEFAULT_ESCAPE_RADIUS;
     private double xRange = DEFAULT_X_RANGE;
     private double yRange = DEFAULT_Y_RANGE;
     private Point2D.Double center;
+    private BigDecimal preciseCenterX; // Exact center used by deep zoom, center holds its rounded value
+    private BigDecimal preciseCenterY;
     private double yStep;
     private double xStep;
-    private static int THRESHOLD_Y = 50;
     private double maxIterationsMultiplier = 1;
-    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private boolean cardioidCheck = DEFAULT_CARDIOID_CHECK;
+    private boolean periodicityCheck = DEFAULT_PERIODICITY_CHECK;
+    private double periodicityTolerance;
+    private RenderMode renderMode = DEFAULT_RENDER_MODE;
+    private boolean singlePrecision = DEFAULT_SINGLE_PRECISION;
+    private final KernelRegistry kernels = new KernelRegistry();
+    private EscapeTimeKernel kernel; // Kernel and view used by the frame that is being generated
+    private KernelParameters parameters;
+    private int renderThreads = DEFAULT_RENDER_THREADS;
+    private int renderThreadPriority = DEFAULT_RENDER_THREAD_PRIORITY;
+    private volatile ForkJoinPool pool = createPool();
+    private TileScheduler tiles;
+    private final AtomicLong cancelRequests = new AtomicLong(); // Incremented to abort generation in progress
+    private volatile long generationToken; // Value of cancelRequests when current generation started
+    private boolean frameComplete = true; // False if last frame was cancelled, so results hold pixels of two views
+    private Point unpublishedShift = new Point(); // Pans applied to center, but not to published frame (cancelled)
     private Dimension size;
 
     /**
@@ -38,104 +94,440 @@ public class MandelbrotSetModel extends Observable
      */
     public MandelbrotSetModel(Dimension size) {
         this.size = size;
-        results = new ArrayList<>(Collections.nCopies(size.width * size.height, new MandelbrotSetResult(0, 0)));
-        center = new Point2D.Double(DEFAULT_CENTER_X, DEFAULT_CENTER_Y);
+        results = new MandelbrotSetFrame(size.width, size.height);
+        publishedFrame.set(new MandelbrotSetFrame(size.width, size.height));
+        setCenter(new Point2D.Double(DEFAULT_CENTER_X, DEFAULT_CENTER_Y));
 
         calculateStep();
+        kernels.calibrateInBackground();
+    }
+
+    /**
+     * Calculates iterations and escape value for every pixel of the main window
+     * @return false if generation was cancelled
+     */
+    public synchronized boolean generate() {
+        unpublishedShift = new Point();
+        results.resetOrigin();
+        propertyChangeSupport.firePropertyChange("viewport", null, getCenter());
+
+        if(renderMode == RenderMode.BRUTE_FORCE)
+            frameComplete = generateProgressively();
+        else
+            frameComplete = generateConcurrently(0, size.width, 0, size.height, true);
+
+        return frameComplete;
+    }
+
+    /**
+     * Generates the whole frame in passes of decreasing block size. Every pass calculates only pixels on its lattice
+     * that previous passes didn't calculate and fills the block of each of them with its value, so coarse passes
+     * can be shown while the next one is generated. Final pass leaves exactly the same frame as generating it at once.
+     * @return false if generation was cancelled
+     */
+    private synchronized boolean generateProgressively() {
+        prepareGeneration();
+        Rectangle whole = new Rectangle(0, 0, size.width, size.height);
+        long start = System.nanoTime();
+
+        for(int blockSize = PROGRESSIVE_BLOCK_SIZE; blockSize >= 1; blockSize /= 2) {
+            final int passBlockSize = blockSize;
+            getTileScheduler().render(pool, 0, size.width, 0, size.height,
+                    (x0, x1, y0, y1) -> generatePass(x0, x1, y0, y1, passBlockSize), this::isGenerationCancelled);
+
+            if(isGenerationCancelled())
+                return false;
+
+            // Pass with block size n calculated 1/n^2 of pixels, coarse frame is shown only if the rest takes long
+            long remaining = (System.nanoTime() - start) * (blockSize * blockSize - 1);
+            if(blockSize > 1 && remaining >= PROGRESSIVE_MIN_REMAINING_NANOS) {
+                publishFrame(new Point(), Collections.singletonList(whole));
+                synchronizeBackBuffer(publishedFrame.get());
+                backBufferVersion = -1;
+            }
+        }
+
+        publishFrame(new Point(), Collections.singletonList(whole));
+        return true;
+    }
+
+    /**
+     * Calculates pixels of tile lying on lattice of given block size which aren't on the lattice of twice as big
+     * blocks (all lattice pixels for the first pass) and fills their blocks
+     */
+    private void generatePass(int firstPixel, int lastPixel, int firstLine, int lastLine, int blockSize) {
+        boolean firstPass = blockSize == PROGRESSIVE_BLOCK_SIZE;
+        KernelParameters sparse = parameters.withPixelStep(2 * blockSize);
+        KernelParameters dense = parameters.withPixelStep(blockSize);
+
+        for(int y = alignUp(firstLine, blockSize); y < lastLine && !isGenerationCancelled(); y += blockSize) {
+            // Every second pixel of lines on the previous lattice was already calculated
+            boolean previousLine = !firstPass && y % (2 * blockSize) == 0;
+            int first = previousLine ? alignUp(firstPixel - blockSize, 2 * blockSize) + blockSize
+                                     : alignUp(firstPixel, blockSize);
+
+            kernel.generateLine(previousLine ? sparse : dense, first, lastPixel, y, results);
+
+            if(blockSize > 1)
+                fillBlocks(first, lastPixel, previousLine ? 2 * blockSize : blockSize, y, blockSize);
+        }
     }
 
     /**
-     * Calculates MandelbrotSetResult for every pixel of the main window
+     * Fills block of every calculated pixel of line y in range &lt;firstPixel, lastPixel) with its value
      */
-    public void generate() {
-        generateConcurrently(0, size.width, 0, size.height);
+    private void fillBlocks(int firstPixel, int lastPixel, int pixelStep, int y, int blockSize) {
+        int lastLine = Math.min(y + blockSize, size.height);
+
+        for(int x = firstPixel; x < lastPixel; x += pixelStep) {
+            int index = y * size.width + x;
+            int iterations = results.getIterations(index);
+            float escapeValue = results.getEscapeValue(index);
+            int length = Math.min(blockSize, size.width - x);
+
+            for(int line = y; line < lastLine; ++line)
+                results.fill(line * size.width + x, line * size.width + x + length, iterations, escapeValue);
+        }
+    }
+
+    private static int alignUp(int value, int alignment) {
+        return Math.floorDiv(value + alignment - 1, alignment) * alignment;
+    }
+
+    /**
+     * Aborts generation in progress. Works at tile granularity (or line when tile takes longer), so generation stops
+     * within milliseconds and releases model for the next request. Isn't synchronized, so it can be called while
+     * other thread generates the set.
+     */
+    public void cancelGeneration() {
+        cancelRequests.incrementAndGet();
+    }
+
+    private boolean isGenerationCancelled() {
+        return cancelRequests.get() != generationToken;
+    }
+
+    /**
+     * @return false if generation was cancelled, listeners aren't notified then
+     */
+    private synchronized boolean generateConcurrently(int startX, int endX, int startY, int endY,
+                                                      boolean showResult) {
+        if(startX >= endX || startY >= endY)
+            return true;
+
+        prepareGeneration();
+
+        if(renderMode == RenderMode.MARIANI_SILVER)
+            pool.invoke(new ForkSubdivide(startX, endX - 1, startY, endY - 1, false));
+        else
+            getTileScheduler().render(pool, startX, endX, startY, endY, this::renderTile, this::isGenerationCancelled);
+
+        if(isGenerationCancelled())
+            return false;
+
+        if(showResult)
+            publishFrame(new Point(), Collections.singletonList(new Rectangle(startX, startY, endX - startX,
+                    endY - startY)));
+
+        return true;
     }
 
-    private void generateConcurrently(int startX, int endX, int startY, int endY) {
-        generateConcurrently(startX, endX, startY, endY, true);
+    /**
+     * Starts new generation, chooses kernel and view used by it
+     */
+    private synchronized void prepareGeneration() {
+        generationToken = cancelRequests.get();
+        backBufferVersion = -1;
+        kernel = kernels.getKernel(choosePrecisionBand(xStep, yStep));
+        parameters = new KernelParameters(size.width, preciseCenterX, preciseCenterY, xRange, yRange, xStep, yStep,
+                maxIterations, escapeRadius, cardioidCheck, periodicityCheck ? periodicityTolerance : 0);
+        kernel.prepare(parameters);
     }
 
-    private synchronized void generateConcurrently(int startX, int endX, int startY, int endY, boolean showResult) {
-        ForkGenerate fg = new ForkGenerate(startX, endX, startY, endY);
-        pool.invoke(fg);
+    /**
+     * Swaps complete back buffer with published frame. Frame published before that one becomes the new back buffer,
+     * so writer never touches the frame readers get from getFrame and readers never wait for the writer.
+     * Then notifies frame listeners.
+     * @param shift how far content of previous frame was moved
+     * @param dirtyRegions areas that were generated
+     */
+    private synchronized void publishFrame(Point shift, List<Rectangle> dirtyRegions) {
+        results.publish(++frameVersion, parameters);
+        MandelbrotSetFrame previous = publishedFrame.getAndSet(results);
+        previousShift = publishedShift;
+        previousDirtyRegions = publishedDirtyRegions;
+        publishedShift = new Point(shift);
+        publishedDirtyRegions = dirtyRegions;
 
-        if(showResult) {
-            setChanged();
-            notifyObservers();
+        if(retiredFrame != null && retiredFrame.hasSize(size.width, size.height)) {
+            backBufferVersion = retiredFrame.getVersion();
+            results = retiredFrame;
+        }
+        else {
+            backBufferVersion = -1;
+            results = new MandelbrotSetFrame(size.width, size.height);
         }
+
+        results.retire();
+        retiredFrame = previous;
+
+        FrameEvent event = new FrameEvent(this, publishedFrame.get(), shift, dirtyRegions);
+        for(FrameListener listener : frameListeners)
+            listener.frameChanged(event);
+    }
+
+    /**
+     * @return tile scheduler matching current size and pool, it keeps tile costs measured in previous frames
+     */
+    private TileScheduler getTileScheduler() {
+        if(tiles == null || !tiles.fits(size.width, size.height, pool.getParallelism()))
+            tiles = new TileScheduler(size.width, size.height, pool.getParallelism());
+
+        return tiles;
+    }
+
+    private void renderTile(int firstPixel, int lastPixel, int firstLine, int lastLine) {
+        if(renderMode == RenderMode.BOUNDARY_TRACING)
+            new BoundaryTracer(firstPixel, lastPixel, firstLine, lastLine).trace();
+        else
+            generateBlock(firstPixel, lastPixel, firstLine, lastLine);
     }
 
     private void generateBlock(int firstPixel, int lastPixel, int firstLine, int lastLine) {
-        for(int y = firstLine; y < lastLine; ++y)
+        for(int y = firstLine; y < lastLine && !isGenerationCancelled(); ++y)
             generateLine(firstPixel, lastPixel, y);
     }
 
     /**
-     * Calculates MandelbrotSetResult for every pixel in range &lt;firstPixel, lastPixel)
+     * Calculates iterations and escape value for every pixel in range &lt;firstPixel, lastPixel)
      * @param firstPixel inclusive
      * @param lastPixel exclusive
      * @param line line
      */
     private void generateLine(int firstPixel, int lastPixel, int line) {
-        double Pi = (center.y - yRange / 2.0) + yStep * line;
-        double Pr = (center.x - xRange / 2.0) + xStep * firstPixel;
+        kernel.generateLine(parameters, firstPixel, lastPixel, line, results);
+    }
+
+    private void generatePixel(int x, int y) {
+        kernel.generateLine(parameters, x, x + 1, y, results);
+    }
+
+    /**
+     * Calculates column x for lines in range &lt;firstLine, lastLine)
+     */
+    private void generateColumn(int x, int firstLine, int lastLine) {
+        for(int y = firstLine; y < lastLine; ++y)
+            generatePixel(x, y);
+    }
+
+    /**
+     * @return true if every pixel on the border of rectangle (all bounds are inclusive) has the same iterations and
+     *         can be filled (see isFillable)
+     */
+    private boolean isBorderUniform(int x0, int x1, int y0, int y1) {
+        int iterations = results.getIterations(y0 * size.width + x0);
+
+        for(int x = x0; x <= x1; ++x) {
+            if(!isFillable(x, y0, iterations) || !isFillable(x, y1, iterations))
+                return false;
+        }
+
+        for(int y = y0 + 1; y < y1; ++y) {
+            if(!isFillable(x0, y, iterations) || !isFillable(x1, y, iterations))
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Pixels that reached max iterations can lie next to escaping points of filaments thinner than a pixel, which
+     * don't touch any calculated pixel. Area of them is filled only if it's proven to be inside main cardioid or
+     * period-2 bulb.
+     * @return true if pixel (x, y) has given iterations and area of such pixels can be filled without calculating it
+     */
+    private boolean isFillable(int x, int y, int iterations) {
+        if(results.getIterations(y * size.width + x) != iterations)
+            return false;
+
+        return iterations < parameters.getMaxIterations()
+                || isInMainCardioidOrBulb(parameters.getLeft() + parameters.getXStep() * x, parameters.getImaginary(y));
+    }
+
+    /**
+     * @return arithmetic precise enough for given pixel spacing
+     */
+    private synchronized PrecisionBand choosePrecisionBand(double xStep, double yStep) {
+        double magnitude = Math.max(Math.abs(center.x) + xRange / 2, Math.abs(center.y) + yRange / 2);
+        double spacing = Math.min(xStep, yStep) / Math.ulp(magnitude);
+
+        // Float ulps are 2^29 times bigger than double ulps
+        if(singlePrecision && spacing >= FLOAT_PRECISION_LIMIT * 0x1p29 && maxIterations <= FLOAT_MAX_ITERATIONS)
+            return PrecisionBand.FLOAT;
 
-        for(int i = firstPixel; i < lastPixel; ++i, Pr += xStep)
-            results.set(line * size.width + i, getIterations(Pr, Pi));
+        if(spacing >= DOUBLE_PRECISION_LIMIT)
+            return PrecisionBand.DOUBLE;
+
+        if(spacing >= DOUBLE_DOUBLE_PRECISION_LIMIT)
+            return PrecisionBand.DOUBLE_DOUBLE;
+
+        return PrecisionBand.PERTURBATION;
     }
 
     /**
+     * Checks in closed form whether point lies inside main cardioid or period-2 bulb of the mandelbrot set
      * @param Pr real part of point
      * @param Pi imaginary part of point
-     * @return MandelbrotSetResult for given point until going past escapeRadius
      */
-    private MandelbrotSetResult getIterations(double Pr, double Pi) {
-        double Zr  = 0;
-        double Zi  = 0;
-        double Zr2 = 0; // decreases amount of multiplications
-        double Zi2 = 0; // decreases amount of multiplications
-        long   n   = 0;
+    static boolean isInMainCardioidOrBulb(double Pr, double Pi) {
+        double Pi2 = Pi * Pi;
+        double xShifted = Pr - 0.25;
+        double q = xShifted * xShifted + Pi2;
+
+        if(q * (q + xShifted) <= 0.25 * Pi2)
+            return true;
+
+        double xBulb = Pr + 1;
+        return xBulb * xBulb + Pi2 <= 0.0625;
+    }
+
+    /**
+     * Brings back buffer up to date with published frame. Back buffer usually holds the frame published two frames
+     * before it, then only its origin is moved and regions generated for both newer frames are copied.
+     */
+    private synchronized void synchronizeBackBuffer(MandelbrotSetFrame published) {
+        long behind = published.getVersion() - backBufferVersion;
+        if(behind == 0)
+            return;
+
+        Rectangle whole = new Rectangle(0, 0, size.width, size.height);
+        if(behind == 1 && !publishedDirtyRegions.contains(whole)) {
+            results.moveOrigin(publishedShift.x, publishedShift.y);
+            copyRegions(published, publishedDirtyRegions, 0, 0);
+        }
+        else if(behind == 2 && !publishedDirtyRegions.contains(whole) && !previousDirtyRegions.contains(whole)) {
+            results.moveOrigin(previousShift.x + publishedShift.x, previousShift.y + publishedShift.y);
+            // Regions generated for previous frame were moved by the shift of published frame
+            copyRegions(published, previousDirtyRegions, publishedShift.x, publishedShift.y);
+            copyRegions(published, publishedDirtyRegions, 0, 0);
+        }
+        else {
+            results.copyFrom(published);
+            ++fullCopies;
+        }
+
+        backBufferVersion = published.getVersion();
+    }
+
+    /**
+     * Copies regions moved by -xShift, -yShift (parts that were moved out of the frame are skipped) from source
+     * to back buffer
+     */
+    private void copyRegions(MandelbrotSetFrame source, List<Rectangle> regions, int xShift, int yShift) {
+        Rectangle whole = new Rectangle(0, 0, size.width, size.height);
 
-        // Mandelbrot set equation
-        for( ; n < maxIterations && Zr2+Zi2 <= escapeRadius; ++n) {
-            Zi = 2 * Zr * Zi + Pi;
-            Zr = Zr2 - Zi2 + Pr;
-            Zr2 = Zr * Zr;
-            Zi2 = Zi * Zi;
+        for(Rectangle region : regions) {
+            Rectangle moved = new Rectangle(region.x - xShift, region.y - yShift, region.width, region.height);
+            Rectangle visible = moved.intersection(whole);
+
+            if(!visible.isEmpty())
+                results.copyRegion(source, visible);
         }
+    }
 
-        return new MandelbrotSetResult(n, (Zr2+Zi2));
+    /**
+     * @return number of times back buffer had to copy the whole published frame, steady panning doesn't increase it
+     */
+    public synchronized long getFullCopyCount() {
+        return fullCopies;
     }
 
     /**
-     * @return Array containing calculated MandelbrotSetResult for each pixel
+     * @return transform from pixels of frame to pixels of current view, null if frame already shows current view or
+     *         was rendered for other size
      */
-    public synchronized List<MandelbrotSetResult> getResults() {
-        ArrayList<MandelbrotSetResult> copy = new ArrayList<>(results.size());
+    public synchronized AffineTransform getViewTransform(MandelbrotSetFrame frame) {
+        KernelParameters view = frame.getParameters();
+        if(view == null || !frame.hasSize(size.width, size.height))
+            return null;
+
+        if(view.getCenterX().compareTo(preciseCenterX) == 0 && view.getCenterY().compareTo(preciseCenterY) == 0
+                && view.getXStep() == xStep && view.getYStep() == yStep)
+            return null;
 
-        for(MandelbrotSetResult result : results)
-            copy.add(new MandelbrotSetResult(result.getIterations(), result.getEscapeValue()));
+        // Difference of centers is calculated exactly, at deep zoom it's much smaller than the centers themselves
+        double xScale = view.getXStep() / xStep;
+        double yScale = view.getYStep() / yStep;
+        double xOffset = view.getCenterX().subtract(preciseCenterX).doubleValue() / xStep
+                + (xRange - view.getXRange()) / (2 * xStep);
+        double yOffset = view.getCenterY().subtract(preciseCenterY).doubleValue() / yStep
+                + (yRange - view.getYRange()) / (2 * yStep);
 
-        return copy;
+        return new AffineTransform(xScale, 0, 0, yScale, xOffset, yOffset);
+    }
+
+    /**
+     * Doesn't block nor copy anything, returned frame isn't modified while it's one of the two newest frames.
+     * Readers that hold it longer can check that its version didn't change (recycled frame has version -1).
+     * @return last complete frame
+     */
+    public MandelbrotSetFrame getFrame() {
+        return publishedFrame.get();
     }
 
     /**
      * @param changeVector which direction and how far(in pixels) will center be moved.
      */
     public synchronized void moveCenter(Point changeVector) {
-        double xChange = xStep * changeVector.getX();
-        double yChange = yStep * changeVector.getY();
-
-        center.setLocation(center.getX() + xChange, center.getY() + yChange);
+        shiftCenter(changeVector.x, changeVector.y);
         moveMandelbrotSet(changeVector);
     }
 
+    /**
+     * Moves center by changeVector (in pixels, can be fractional) and then zooms, generating the set only once.
+     * When there's no zoom and move is whole pixels, already calculated part of the set is reused.
+     */
+    public synchronized void moveCenterAndZoom(Point2D.Double changeVector, double zoomChange) {
+        boolean wholePixels = changeVector.x == Math.rint(changeVector.x)
+                && changeVector.y == Math.rint(changeVector.y);
+
+        if(zoomChange == 1 && wholePixels) {
+            if(changeVector.x != 0 || changeVector.y != 0)
+                moveCenter(new Point((int) changeVector.x, (int) changeVector.y));
+
+            return;
+        }
+
+        shiftCenter(changeVector.x, changeVector.y);
+
+        // Zoom would recalculate max iterations set by the user
+        if(zoomChange == 1)
+            generate();
+        else
+            zoom(zoomChange);
+    }
+
+    /**
+     * Moves center by given number of pixels without generating the set
+     */
+    private synchronized void shiftCenter(double xPixels, double yPixels) {
+        MathContext mc = new MathContext(PerturbationEngine.requiredPrecision(Math.min(xStep, yStep)));
+        BigDecimal xChange = new BigDecimal(xStep).multiply(BigDecimal.valueOf(xPixels));
+        BigDecimal yChange = new BigDecimal(yStep).multiply(BigDecimal.valueOf(yPixels));
+
+        setCenter(preciseCenterX.add(xChange, mc), preciseCenterY.add(yChange, mc));
+    }
+
     private synchronized void moveMandelbrotSet(Point changeVectorPixels) {
-        int xShift = changeVectorPixels.x;
-        int yShift = changeVectorPixels.y;
+        // Published frame doesn't include pans that were cancelled, they are generated together with this one
+        int xShift = unpublishedShift.x + changeVectorPixels.x;
+        int yShift = unpublishedShift.y + changeVectorPixels.y;
+
+        MandelbrotSetFrame source = publishedFrame.get();
 
-        // Generate new set if nothing can be shifted
-        if(Math.abs(xShift) >= size.width || Math.abs(yShift) >= size.height) {
+        // Generate new set if nothing can be shifted or shifted data doesn't belong to one view
+        if(Math.abs(xShift) >= size.width || Math.abs(yShift) >= size.height || !frameComplete
+                || !source.hasSize(size.width, size.height)) {
             generate();
             return;
         }
@@ -144,54 +536,31 @@ public class MandelbrotSetModel extends Observable
         int xStart = 0, xEnd = 0, yStart = 0, yEnd = 0;
         int xStartLine=0, xEndLine = size.height, yStartPixel = 0, yEndPixel = size.width;
 
-        // Shift left/right (If center moved to the right then shift data to the left)
-        if(xShift != 0) {
-            int shiftRangeBeg = (xShift > 0) ? xShift : (size.width - 1 + xShift);
-            int direction = xShift / Math.abs(xShift); // Increment when moving center to the right, decrement otherwise
-            int shiftRangeEnd = (xShift > 0) ? size.width : -1;
+        unpublishedShift = new Point(xShift, yShift);
+        boolean complete = true;
 
-            // Shifts array data by xShift and fills emptied cells
-            for(int y = 0; y < size.height; ++y) {
-                int lineOffset = y * size.width;
+        // Move data of published frame (If center moved to the right then shift data to the left), costs nothing
+        // as only origin of the buffer changes
+        synchronizeBackBuffer(source);
+        results.moveOrigin(xShift, yShift);
 
-                for(int i = shiftRangeBeg; i != shiftRangeEnd; i += direction)
-                    results.set(i - xShift + lineOffset, results.get(i + lineOffset));
-            }
-
-            // Defines the area where data have to be generated as it holds invalid values
-            if(xShift > 0) {
-                xStart = size.width - xShift;
-                xEnd = size.width;
-            }
-            else {
-                xStart = 0;
-                xEnd = -xShift;
-            }
+        // Defines the area where data have to be generated as it holds invalid values
+        if(xShift > 0) {
+            xStart = size.width - xShift;
+            xEnd = size.width;
+        }
+        else if(xShift < 0) {
+            xStart = 0;
+            xEnd = -xShift;
         }
 
-        // Shift up/down (If center moved down then shift data upwards)
-        if(yShift != 0) {
-            int shiftRangeBeg = (yShift > 0) ? yShift : (size.height - 1 + yShift);
-            int direction = yShift / Math.abs(yShift); // Increment when moving center down, decrement otherwise
-            int shiftRangeEnd = (yShift > 0) ? size.height : -1;
-
-            // Shifts array data by yShift and fills emptied cells
-            for(int y = shiftRangeBeg; y != shiftRangeEnd; y += direction) {
-                int lineOffset = y * size.width;
-
-                for(int i = 0; i < size.width; ++i)
-                    results.set(i + lineOffset - yShift * size.width, results.get(i + lineOffset));
-            }
-
-            // Defines the area where data have to be generated as it holds invalid values
-            if(yShift > 0) {
-                yStart = size.height - yShift;
-                yEnd = size.height;
-            }
-            else {
-                yStart = 0;
-                yEnd = -yShift;
-            }
+        if(yShift > 0) {
+            yStart = size.height - yShift;
+            yEnd = size.height;
+        }
+        else if(yShift < 0) {
+            yStart = 0;
+            yEnd = -yShift;
         }
 
         // If data was shifted both vertically and horizontally then generate common area only once
@@ -209,19 +578,29 @@ public class MandelbrotSetModel extends Observable
                 yStartPixel = xEnd;
 
             // Generate common area
-            generateConcurrently(xStart, xEnd, yStart, yEnd, false);
+            complete = generateConcurrently(xStart, xEnd, yStart, yEnd, false);
         }
 
         // Fill cells that hold invalid data
-        if(xShift != 0)
-            generateConcurrently(xStart, xEnd, xStartLine, xEndLine, false);
+        if(xShift != 0 && complete)
+            complete = generateConcurrently(xStart, xEnd, xStartLine, xEndLine, false);
 
-        if(yShift != 0)
-            generateConcurrently(yStartPixel, yEndPixel, yStart, yEnd, false);
+        if(yShift != 0 && complete)
+            complete = generateConcurrently(yStartPixel, yEndPixel, yStart, yEnd, false);
+
+        // Published frame is still complete, so the next pan can start from it
+        if(!complete)
+            return;
 
         // Update view
-        setChanged();
-        notifyObservers();
+        List<Rectangle> dirtyRegions = new ArrayList<>(2);
+        if(xShift != 0)
+            dirtyRegions.add(new Rectangle(xStart, 0, xEnd - xStart, size.height));
+        if(yShift != 0)
+            dirtyRegions.add(new Rectangle(yStartPixel, yStart, yEndPixel - yStartPixel, yEnd - yStart));
+
+        unpublishedShift = new Point();
+        publishFrame(new Point(xShift, yShift), dirtyRegions);
     }
 
     public synchronized double getXRange() {
@@ -245,9 +624,18 @@ public class MandelbrotSetModel extends Observable
     private synchronized void calculateStep() {
         xStep = getXRange() / size.width;
         yStep = getYRange() / size.height;
+        periodicityTolerance = Math.min(xStep, yStep) * PERIODICITY_TOLERANCE;
     }
 
     public synchronized void zoom(double zoomChange) {
+        applyZoom(zoomChange);
+        generate();
+    }
+
+    /**
+     * Changes ranges and max iterations like zoom does, but without generating the set
+     */
+    public synchronized void applyZoom(double zoomChange) {
         xRange /= zoomChange;
         yRange /= zoomChange;
 
@@ -257,18 +645,124 @@ public class MandelbrotSetModel extends Observable
         maxIterations = (long) (temp * maxIterationsMultiplier);
 
         calculateStep();
-        generate();
+        frameComplete = false; // Published frame shows other view, it can't be panned
     }
 
     public void setSize(Dimension size) {
-        // If size didn't change then don't do anything
-        if(this.size.width != size.width || this.size.height != size.height) {
-            propertyChangeSupport.firePropertyChange("size", this.size, size);
-            this.size = size;
-            results = new ArrayList<>(Collections.nCopies(size.width * size.height, new MandelbrotSetResult(0, 0)));
-            calculateStep();
+        if(resize(size))
             generate();
-        }
+    }
+
+    /**
+     * Changes size without generating the set
+     * @return false if size didn't change
+     */
+    private synchronized boolean resize(Dimension size) {
+        // If size didn't change then don't do anything
+        if(this.size.width == size.width && this.size.height == size.height)
+            return false;
+
+        propertyChangeSupport.firePropertyChange("size", this.size, size);
+        this.size = size;
+        results = new MandelbrotSetFrame(size.width, size.height);
+        retiredFrame = null;
+        backBufferVersion = -1;
+        calculateStep();
+
+        return true;
+    }
+
+    /**
+     * Sets center, ranges and max iterations at once and generates the set only once
+     * @return false if generation was cancelled
+     * @throws IllegalArgumentException if viewport is invalid (see validateViewport)
+     */
+    public synchronized boolean setViewport(BigDecimal centerX, BigDecimal centerY, double xRange, double yRange,
+                                           long maxIterations) {
+        return setViewport(size, centerX, centerY, xRange, yRange, maxIterations);
+    }
+
+    /**
+     * Sets size, center, ranges and max iterations at once and generates the set only once
+     * @return false if generation was cancelled
+     * @throws IllegalArgumentException if viewport is invalid (see validateViewport)
+     */
+    public synchronized boolean setViewport(Dimension size, BigDecimal centerX, BigDecimal centerY, double xRange,
+                                           double yRange, long maxIterations) {
+        validateViewport(size, xRange, yRange, maxIterations);
+
+        resize(size);
+        applyViewport(centerX, centerY, xRange, yRange, maxIterations);
+
+        return generate();
+    }
+
+    /**
+     * Sets center, ranges and max iterations at once without generating the set. Center is given precisely, so
+     * viewports of deep zooms can be applied without losing precision.
+     * @throws IllegalArgumentException if viewport is invalid (see validateViewport)
+     */
+    public synchronized void applyViewport(BigDecimal centerX, BigDecimal centerY, double xRange, double yRange,
+                                           long maxIterations) {
+        validateViewport(size, xRange, yRange, maxIterations);
+
+        setCenter(centerX, centerY);
+        this.xRange = xRange;
+        this.yRange = yRange;
+        this.maxIterations = maxIterations;
+        calculateStep();
+        frameComplete = false; // Published frame shows other view, it can't be panned
+    }
+
+    /**
+     * Generates current view in size of the image and colors it straight into the image, so nothing but a line of
+     * results per render thread is stored. Frame of the model isn't changed and listeners aren't notified.
+     * Every pixel is calculated regardless of render mode, as other modes need results of neighbouring pixels.
+     * @param image TYPE_INT_RGB image
+     * @return false if generation was cancelled, image is incomplete then
+     */
+    public synchronized boolean renderImage(BufferedImage image, RGBPicker picker, boolean colorSmoothing) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        double imageXStep = xRange / width;
+        double imageYStep = yRange / height;
+        double tolerance = Math.min(imageXStep, imageYStep) * PERIODICITY_TOLERANCE;
+
+        generationToken = cancelRequests.get();
+        EscapeTimeKernel imageKernel = kernels.getKernel(choosePrecisionBand(imageXStep, imageYStep));
+        KernelParameters imageParameters = new KernelParameters(width, preciseCenterX, preciseCenterY, xRange,
+                yRange, imageXStep, imageYStep, maxIterations, escapeRadius, cardioidCheck,
+                periodicityCheck ? tolerance : 0).withLineBuffer();
+        imageKernel.prepare(imageParameters);
+
+        Palette palette = picker.createPalette(maxIterations, colorSmoothing);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        ThreadLocal<MandelbrotSetFrame> lines = ThreadLocal.withInitial(() -> new MandelbrotSetFrame(width, 1));
+
+        forEachLine(0, height, (y) -> {
+            if(isGenerationCancelled())
+                return;
+
+            MandelbrotSetFrame line = lines.get();
+            imageKernel.generateLine(imageParameters, 0, width, y, line);
+
+            for(int x = 0; x < width; ++x)
+                pixels[y * width + x] = palette.getRGB(line.getIterations(x), line.getEscapeValue(x)) & 0xFFFFFF;
+        });
+
+        return !isGenerationCancelled();
+    }
+
+    /**
+     * @throws IllegalArgumentException if size, ranges or max iterations aren't positive
+     */
+    public static void validateViewport(Dimension size, double xRange, double yRange, long maxIterations) {
+        if(size.width <= 0 || size.height <= 0)
+            throw new IllegalArgumentException("Size has to be positive");
+        if(!(xRange > 0) || !(yRange > 0) || Double.isInfinite(xRange) || Double.isInfinite(yRange))
+            throw new IllegalArgumentException("Ranges have to be positive");
+        if(maxIterations <= 0)
+            throw new IllegalArgumentException("Max iterations have to be positive");
     }
 
     public Dimension getSize() {
@@ -287,10 +781,34 @@ public class MandelbrotSetModel extends Observable
         return center;
     }
 
+    /**
+     * Center given as doubles replaces precise center only if it differs from its rounded value, so that setting
+     * values read from getCenter() doesn't lose precision. Precise center gets the shortest decimal value of
+     * the doubles (e.g. 0.1), so dialogs show it the way it was typed.
+     */
     public synchronized void setCenter(Point2D.Double center) {
+        if(!center.equals(this.center)) {
+            preciseCenterX = BigDecimal.valueOf(center.x);
+            preciseCenterY = BigDecimal.valueOf(center.y);
+        }
+
         this.center = center;
     }
 
+    public synchronized void setCenter(BigDecimal x, BigDecimal y) {
+        preciseCenterX = x;
+        preciseCenterY = y;
+        center = new Point2D.Double(x.doubleValue(), y.doubleValue());
+    }
+
+    public synchronized BigDecimal getPreciseCenterX() {
+        return preciseCenterX;
+    }
+
+    public synchronized BigDecimal getPreciseCenterY() {
+        return preciseCenterY;
+    }
+
     public long getEscapeRadius() {
         return escapeRadius;
     }
@@ -307,7 +825,148 @@ public class MandelbrotSetModel extends Observable
         this.maxIterationsMultiplier = maxIterationsMultiplier;
     }
 
+    public synchronized boolean isCardioidCheckEnabled() {
+        return cardioidCheck;
+    }
+
+    /**
+     * @param flag enables/disables skipping iterations for points inside main cardioid and period-2 bulb
+     */
+    public synchronized void setCardioidCheck(boolean flag) {
+        cardioidCheck = flag;
+    }
+
+    public synchronized boolean isPeriodicityCheckEnabled() {
+        return periodicityCheck;
+    }
+
+    /**
+     * @param flag enables/disables early bailout for points whose orbit became periodic
+     */
+    public synchronized void setPeriodicityCheck(boolean flag) {
+        periodicityCheck = flag;
+    }
+
+    public synchronized RenderMode getRenderMode() {
+        return renderMode;
+    }
+
+    public synchronized void setRenderMode(RenderMode renderMode) {
+        this.renderMode = renderMode;
+    }
+
+    /**
+     * @return name of kernel forced for given precision band or "auto" if the fastest one is used
+     */
+    public synchronized String getKernelOverride(PrecisionBand band) {
+        return kernels.getOverride(band);
+    }
+
+    /**
+     * @param name name of kernel that has to be used for given precision band or "auto" for the fastest one
+     */
+    public synchronized void setKernelOverride(PrecisionBand band, String name) {
+        kernels.setOverride(band, name);
+    }
+
+    public synchronized int getRenderThreads() {
+        return renderThreads;
+    }
+
+    /**
+     * Replaces render pool with one having given number of threads (at least 1)
+     */
+    public synchronized void setRenderThreads(int threads) {
+        threads = Math.max(1, Math.min(MAX_RENDER_THREADS, threads));
+
+        if(threads != renderThreads) {
+            renderThreads = threads;
+            replacePool();
+        }
+    }
+
+    public synchronized int getRenderThreadPriority() {
+        return renderThreadPriority;
+    }
+
+    /**
+     * Replaces render pool with one whose threads have given priority (clamped to valid thread priorities)
+     */
+    public synchronized void setRenderThreadPriority(int priority) {
+        priority = Math.max(Thread.MIN_PRIORITY, Math.min(Thread.MAX_PRIORITY, priority));
+
+        if(priority != renderThreadPriority) {
+            renderThreadPriority = priority;
+            replacePool();
+        }
+    }
+
+    /**
+     * Calls action for every line in range &lt;firstLine, lastLine) on render threads and waits until it's done.
+     * Isn't synchronized, so it can be used while other thread generates the set (e.g. to color published frame).
+     * When render pool is being replaced, lines are processed by the calling thread.
+     */
+    public void forEachLine(int firstLine, int lastLine, IntConsumer action) {
+        LineTask task = new LineTask(firstLine, lastLine, action);
+
+        try {
+            pool.invoke(task);
+        }
+        catch(RejectedExecutionException e) {
+            task.processLines();
+        }
+    }
+
+    private ForkJoinPool createPool() {
+        return new ForkJoinPool(renderThreads, new RenderThreadFactory(renderThreadPriority), null, false);
+    }
+
+    /**
+     * Frames are generated while holding model lock, so old pool has nothing left to do and can be shut down
+     */
+    private synchronized void replacePool() {
+        pool.shutdown();
+        pool = createPool();
+    }
+
+    /**
+     * Cancels frame that is being generated and stops render threads, waits at most SHUTDOWN_TIMEOUT_SECONDS for
+     * them. Doesn't take model lock, which is held by generation for the whole frame.
+     */
+    public void shutdown() {
+        cancelGeneration();
+        ForkJoinPool pool = this.pool;
+        pool.shutdown();
+
+        try {
+            pool.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public synchronized boolean isSinglePrecisionEnabled() {
+        return singlePrecision;
+    }
+
+    /**
+     * @param flag allows/disallows calculating shallow views in single precision
+     */
+    public synchronized void setSinglePrecision(boolean flag) {
+        singlePrecision = flag;
+    }
+
     public void restoreDefaultSettings() {
+        for(PrecisionBand band : PrecisionBand.values())
+            setKernelOverride(band, KernelRegistry.AUTO);
+
+        setSinglePrecision(DEFAULT_SINGLE_PRECISION);
+        setRenderThreads(DEFAULT_RENDER_THREADS);
+        setRenderThreadPriority(DEFAULT_RENDER_THREAD_PRIORITY);
+        setRenderMode(DEFAULT_RENDER_MODE);
+        setCardioidCheck(DEFAULT_CARDIOID_CHECK);
+        setPeriodicityCheck(DEFAULT_PERIODICITY_CHECK);
         setMaxIterations(DEFAULT_MAX_ITERATIONS);
         setMaxIterationsMultiplier(1);
         setEscapeRadius(DEFAULT_ESCAPE_RADIUS);
@@ -316,6 +975,14 @@ public class MandelbrotSetModel extends Observable
         setYRange(DEFAULT_Y_RANGE);
     }
 
+    public void addFrameListener(FrameListener listener) {
+        frameListeners.add(listener);
+    }
+
+    public void removeFrameListener(FrameListener listener) {
+        frameListeners.remove(listener);
+    }
+
     public void addPropertyChangeListener(String property, PropertyChangeListener listener) {
         propertyChangeSupport.addPropertyChangeListener(property, listener);
     }
@@ -324,33 +991,212 @@ public class MandelbrotSetModel extends Observable
         propertyChangeSupport.removePropertyChangeListener(property, listener);
     }
 
-    private class ForkGenerate extends RecursiveAction
+    private static class LineTask extends RecursiveAction
+    {
+        private final int firstLine;
+        private final int lastLine;
+        private final IntConsumer action;
+
+        public LineTask(int firstLine, int lastLine, IntConsumer action) {
+            this.firstLine = firstLine;
+            this.lastLine = lastLine;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if(lastLine - firstLine <= LINES_PER_TASK) {
+                processLines();
+                return;
+            }
+
+            int mid = (firstLine + lastLine) / 2;
+            invokeAll(new LineTask(firstLine, mid, action), new LineTask(mid, lastLine, action));
+        }
+
+        void processLines() {
+            for(int line = firstLine; line < lastLine; ++line)
+                action.accept(line);
+        }
+    }
+
+    /**
+     * Mariani-Silver algorithm. Rectangle (all bounds are inclusive) whose border has the same number of iterations
+     * (and can be filled, see isFillable) is filled without calculating its interior, otherwise it's split in half
+     * and both halves are processed concurrently. Borders of smaller rectangles are shared with parent so only the splitting line is calculated.
+     * Filled pixels receive escape value of the top-left corner, so smooth coloring is flat inside them.
+     */
+    private class ForkSubdivide extends RecursiveAction
     {
-        private int startX;
-        private int endX;
-        private int startY;
-        private int endY;
+        private int x0;
+        private int x1;
+        private int y0;
+        private int y1;
+        private boolean borderCalculated;
 
-        public ForkGenerate(int startX, int endX, int startY, int endY) {
-            this.startX = startX;
-            this.endX = endX;
-            this.startY = startY;
-            this.endY = endY;
+        public ForkSubdivide(int x0, int x1, int y0, int y1, boolean borderCalculated) {
+            this.x0 = x0;
+            this.x1 = x1;
+            this.y0 = y0;
+            this.y1 = y1;
+            this.borderCalculated = borderCalculated;
         }
 
         @Override
         protected void compute() {
-            int length = endY - startY;
+            if(isGenerationCancelled())
+                return;
 
-            if(length < THRESHOLD_Y) {
-                generateBlock(startX, endX, startY, endY);
+            if(!borderCalculated) {
+                generateLine(x0, x1 + 1, y0);
+                if(y1 > y0)
+                    generateLine(x0, x1 + 1, y1);
+
+                generateColumn(x0, y0 + 1, y1);
+                if(x1 > x0)
+                    generateColumn(x1, y0 + 1, y1);
+            }
+
+            int width = x1 - x0 - 1;
+            int height = y1 - y0 - 1;
+
+            // Every pixel is on the border
+            if(width <= 0 || height <= 0)
+                return;
+
+            if(isBorderUniform(x0, x1, y0, y1)) {
+                int corner = y0 * size.width + x0;
+                int iterations = results.getIterations(corner);
+                float escapeValue = results.getEscapeValue(corner);
+
+                for(int y = y0 + 1; y < y1; ++y)
+                    results.fill(y * size.width + x0 + 1, y * size.width + x1, iterations, escapeValue);
+            }
+            else if(width < MIN_SUBDIVISION_SIZE || height < MIN_SUBDIVISION_SIZE) {
+                generateBlock(x0 + 1, x1, y0 + 1, y1);
+            }
+            else if(width >= height) {
+                int mid = (x0 + x1) / 2;
+                generateColumn(mid, y0 + 1, y1);
+
+                invokeAll(new ForkSubdivide(x0, mid, y0, y1, true),
+                          new ForkSubdivide(mid, x1, y0, y1, true));
             }
             else {
-                int mid = length / 2;
+                int mid = (y0 + y1) / 2;
+                generateLine(x0 + 1, x1, mid);
+
+                invokeAll(new ForkSubdivide(x0, x1, y0, mid, true),
+                          new ForkSubdivide(x0, x1, mid, y1, true));
+            }
+        }
+    }
+
+    /**
+     * Boundary tracing algorithm. Starting from the edges of the block it follows borders between areas with
+     * different number of iterations, pixel on the border has all 8 neighbours calculated, so borders are followed
+     * also where areas touch only diagonally. Pixels that weren't calculated get results of their left neighbour.
+     * Works because areas with the same number of iterations are connected. Areas that can't be filled
+     * (see isFillable) are calculated whole. Filled pixels receive escape value of their neighbour, so smooth coloring
+     * is flat inside them.
+     */
+    private class BoundaryTracer
+    {
+        private static final byte LOADED = 1;
+        private static final byte QUEUED = 2;
+        private final int firstPixel;
+        private final int firstLine;
+        private final int width;
+        private final int height;
+        private final byte[] state;
+        private final int[] queue;
+        private int queueHead = 0;
+        private int queueTail = 0;
+
+        public BoundaryTracer(int firstPixel, int lastPixel, int firstLine, int lastLine) {
+            this.firstPixel = firstPixel;
+            this.firstLine = firstLine;
+            width = lastPixel - firstPixel;
+            height = lastLine - firstLine;
+            state = new byte[width * height];
+            queue = new int[width * height];
+        }
+
+        public void trace() {
+            // Start from the edges of the block
+            for(int x = 0; x < width; ++x) {
+                addToQueue(x);
+                addToQueue((height - 1) * width + x);
+            }
+
+            for(int y = 1; y < height - 1; ++y) {
+                addToQueue(y * width);
+                addToQueue(y * width + width - 1);
+            }
+
+            while(queueHead < queueTail && !isGenerationCancelled())
+                scan(queue[queueHead++]);
 
-                invokeAll(new ForkGenerate(startX, endX, startY, startY + mid),
-                          new ForkGenerate(startX, endX, startY + mid, endY));
+            // Fill areas enclosed by calculated borders
+            for(int y = 0; y < height; ++y) {
+                for(int x = 1; x < width; ++x) {
+                    if((state[y * width + x] & LOADED) == 0) {
+                        int index = globalIndex(y * width + x);
+                        results.set(index, results.getIterations(index - 1), results.getEscapeValue(index - 1));
+                    }
+                }
             }
         }
+
+        private void scan(int p) {
+            int x = p % width;
+            int y = p / width;
+            int center = load(p);
+            int left = Math.max(x - 1, 0);
+            int right = Math.min(x + 1, width - 1);
+            int top = Math.max(y - 1, 0);
+            int bottom = Math.min(y + 1, height - 1);
+            boolean border = !isFillable(firstPixel + x, firstLine + y, center);
+
+            // Pixel is on the border if any of its 8 neighbours is on the other side
+            for(int ny = top; ny <= bottom; ++ny) {
+                for(int nx = left; nx <= right; ++nx) {
+                    load(ny * width + nx);
+                    if(!border && !isFillable(firstPixel + nx, firstLine + ny, center))
+                        border = true;
+                }
+            }
+
+            // Both sides of the border are followed
+            if(border) {
+                for(int ny = top; ny <= bottom; ++ny) {
+                    for(int nx = left; nx <= right; ++nx)
+                        addToQueue(ny * width + nx);
+                }
+            }
+        }
+
+        /**
+         * @return iterations of pixel p (local index), calculates it if it wasn't calculated yet
+         */
+        private int load(int p) {
+            if((state[p] & LOADED) == 0) {
+                generatePixel(firstPixel + p % width, firstLine + p / width);
+                state[p] |= LOADED;
+            }
+
+            return results.getIterations(globalIndex(p));
+        }
+
+        private void addToQueue(int p) {
+            if((state[p] & QUEUED) == 0) {
+                state[p] |= QUEUED;
+                queue[queueTail++] = p;
+            }
+        }
+
+        private int globalIndex(int p) {
+            return (firstLine + p / width) * size.width + firstPixel + p % width;
+        }
     }
-}
\ No newline at end of file
+}
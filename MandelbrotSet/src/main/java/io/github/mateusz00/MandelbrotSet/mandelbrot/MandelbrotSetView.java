@@ -1,5 +1,6 @@
 package io.github.mateusz00.MandelbrotSet.mandelbrot;
 
+import io.github.mateusz00.MandelbrotSet.RGBPickers.Palette;
 import io.github.mateusz00.MandelbrotSet.RGBPickers.PickerRed;
 import io.github.mateusz00.MandelbrotSet.RGBPickers.RGBPicker;
 import io.github.mateusz00.MandelbrotSet.ui.RectangleSelector;
@@ -10,20 +11,22 @@ import java.awt.event.ActionEvent;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
-import java.util.List;
-import java.util.Observable;
-import java.util.Observer;
+import java.awt.image.DataBufferInt;
 
 public class MandelbrotSetView extends JPanel
 {
     private MandelbrotSetController controller;
     private MandelbrotSetModel model;
     private BufferedImage mandelbrotImg;
-    private List<MandelbrotSetResult> results;
+    private MandelbrotSetFrame results;
     private long currentMaxIterations = 0;
+    private long coloredVersion = -1; // Version of the frame whose colors are in the image
     private Dimension currentSize;
     private RGBPicker colorPicker = new PickerRed();
+    private Palette palette;
+    private volatile AffineTransform preview; // Draws stale image in place of the view that is being generated
     private boolean smoothColoring = true;
     private final RectangleSelector rectangleSelector = new RectangleSelector(this);
 
@@ -40,13 +43,14 @@ public class MandelbrotSetView extends JPanel
             final Point location = new Point(rectangleSelector.getLocation());
             final Point center = new Point(location.x + (size.width / 2), location.y + (size.height / 2));
 
-            new Thread(() -> {
-                this.controller.moveCenterTo(center, true);
-                this.controller.zoom( 1 / (size.getWidth() / currentSize.getWidth()), true);
-            }).start();
+            this.controller.zoomToArea(center, currentSize.getWidth() / size.getWidth());
         });
 
-        model.addObserver(new ModelObserver());
+        model.addFrameListener(this::frameChanged);
+        model.addPropertyChangeListener("viewport", (evt) -> {
+            preview = results == null ? null : model.getViewTransform(results);
+            repaint();
+        });
         model.addPropertyChangeListener("size", (evt) -> {
             Dimension size = (Dimension) evt.getNewValue();
             mandelbrotImg = new BufferedImage(size.width, size.height, BufferedImage.TYPE_INT_RGB);
@@ -59,15 +63,30 @@ public class MandelbrotSetView extends JPanel
         addBindings();
     }
 
-    private class ModelObserver implements Observer
-    {
-        @Override
-        public void update(Observable obs, Object obj) {
-            results = model.getResults();
-            currentMaxIterations = model.getMaxIterations();
+    /**
+     * When only part of the frame was generated and the image holds colors of the previous frame, the image is
+     * scrolled by the shift of the frame and only generated regions are recolored
+     */
+    private void frameChanged(FrameEvent event) {
+        boolean previousFrameColored = coloredVersion == event.getVersion() - 1
+                && currentMaxIterations == event.getFrame().getMaxIterations()
+                && event.getFrame().hasSize(mandelbrotImg.getWidth(), mandelbrotImg.getHeight());
+
+        results = event.getFrame();
+        currentMaxIterations = results.getMaxIterations();
 
+        if(event.isFullFrame() || !previousFrameColored) {
             updateView();
+            return;
         }
+
+        scrollImage(event.getShift());
+        for(Rectangle region : event.getDirtyRegions())
+            calculateColors(region);
+
+        preview = null;
+        if(isColoredFrameValid(event.getVersion()))
+            repaint();
     }
 
     public void setColoring(RGBPicker picker) {
@@ -78,21 +97,88 @@ public class MandelbrotSetView extends JPanel
      * Assigns RGB values to each pixel based on number of iterations for point representing that pixel
      */
     public void updateView() {
-        calculateColors();
-        repaint();
+        long version = results.getVersion();
+        calculateColors(new Rectangle(0, 0, results.getWidth(), results.getHeight()));
+        preview = null;
+
+        if(isColoredFrameValid(version))
+            repaint();
     }
 
-    private void calculateColors() {
-        for(int i = 0; i < results.size(); ++i) {
-            int color = colorPicker.iterationsToRGB(results.get(i), currentMaxIterations, smoothColoring);
-            mandelbrotImg.setRGB(i % currentSize.width, i / currentSize.width, color);
+    /**
+     * Moves image content, so pixel (x, y) gets color of pixel (x + shift.x, y + shift.y). Pixels without
+     * counterpart aren't changed.
+     */
+    private void scrollImage(Point shift) {
+        if(shift.x == 0 && shift.y == 0)
+            return;
+
+        int width = mandelbrotImg.getWidth();
+        int height = mandelbrotImg.getHeight();
+        int[] pixels = getImageData();
+        int firstPixel = Math.max(0, -shift.x);
+        int length = width - Math.abs(shift.x);
+
+        // Lines are copied in the order that doesn't overwrite lines which weren't copied yet
+        for(int i = 0; i < height - Math.abs(shift.y); ++i) {
+            int y = shift.y > 0 ? i : height - 1 - i;
+            int dstIndex = y * width + firstPixel;
+            System.arraycopy(pixels, dstIndex + shift.y * width + shift.x, pixels, dstIndex, length);
         }
     }
 
+    /**
+     * Colors lines of the region in parallel on render threads, writing straight to the image data
+     */
+    private void calculateColors(Rectangle region) {
+        int[] pixels = getImageData();
+        MandelbrotSetFrame frame = results;
+        Palette palette = getPalette();
+        int width = frame.getWidth();
+
+        model.forEachLine(region.y, region.y + region.height, (y) -> {
+            for(int x = region.x; x < region.x + region.width; ++x) {
+                int i = y * width + x;
+                int color = palette.getRGB(frame.getIterations(i), frame.getEscapeValue(i));
+
+                pixels[i] = color & 0xFFFFFF; // TYPE_INT_RGB ignores alpha, the same as setRGB
+            }
+        });
+    }
+
+    /**
+     * @return palette of current picker and settings, it's baked again only when they change
+     */
+    private synchronized Palette getPalette() {
+        if(palette == null || !palette.matches(colorPicker, currentMaxIterations, smoothColoring))
+            palette = colorPicker.createPalette(currentMaxIterations, smoothColoring);
+
+        return palette;
+    }
+
+    private int[] getImageData() {
+        return ((DataBufferInt) mandelbrotImg.getRaster().getDataBuffer()).getData();
+    }
+
+    /**
+     * @return false if frame was recycled by the model while colors were calculated, newer frame is published then
+     */
+    private boolean isColoredFrameValid(long version) {
+        boolean valid = version >= 0 && results.getVersion() == version;
+        coloredVersion = valid ? version : -1;
+        return valid;
+    }
+
     @Override
     public void paintComponent(Graphics g) {
         super.paintComponent(g);
-        g.drawImage(mandelbrotImg, 0, 0, null);
+        AffineTransform transform = preview;
+
+        if(transform != null)
+            ((Graphics2D) g).drawImage(mandelbrotImg, transform, null);
+        else
+            g.drawImage(mandelbrotImg, 0, 0, null);
+
         rectangleSelector.paintComponent(g);
     }
 
@@ -0,0 +1,140 @@
+package io.github.mateusz00.MandelbrotSet.mandelbrot;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+/**
+ * Deep zoom engine based on perturbation theory. Orbit of a single reference point is calculated with BigDecimal
+ * and every pixel only iterates its difference from the reference orbit in double precision:
+ * dz(n+1) = 2 * Z(n) * dz(n) + dz(n)^2 + dc
+ * When |Z + dz| gets smaller than |dz| the delta would lose precision (glitch), so pixel is rebased onto the
+ * beginning of reference orbit (dz = Z + dz, n = 0). The same happens when reference orbit ends.
+ */
+class PerturbationEngine
+{
+    private static final int MIN_PRECISION = 20;
+    private static final int EXTRA_DIGITS = 10; // Digits kept beyond pixel spacing
+    private BigDecimal referenceX;
+    private BigDecimal referenceY;
+    private long maxIterations = -1;
+    private long escapeRadius = -1;
+    private int precision;
+    private double[] orbitR = new double[0];
+    private double[] orbitI = new double[0];
+    private int orbitLength;
+
+    /**
+     * @return number of significant digits needed to represent coordinates with given pixel spacing
+     */
+    static int requiredPrecision(double pixelSpacing) {
+        return Math.max(MIN_PRECISION, (int) Math.ceil(-Math.log10(pixelSpacing)) + EXTRA_DIGITS);
+    }
+
+    /**
+     * Calculates reference orbit for given point unless the current one can be reused
+     * @param maxDistance how far (in the complex plane) pixels can be from the reference point
+     */
+    void prepare(BigDecimal x, BigDecimal y, long maxIterations, long escapeRadius, double pixelSpacing,
+                 double maxDistance) {
+        int requiredPrecision = requiredPrecision(pixelSpacing);
+
+        if(referenceX != null && this.maxIterations == maxIterations && this.escapeRadius == escapeRadius
+                && precision >= requiredPrecision
+                && Math.abs(x.subtract(referenceX).doubleValue()) <= maxDistance
+                && Math.abs(y.subtract(referenceY).doubleValue()) <= maxDistance)
+            return;
+
+        calculateReferenceOrbit(x, y, maxIterations, escapeRadius, requiredPrecision);
+    }
+
+    private void calculateReferenceOrbit(BigDecimal x, BigDecimal y, long maxIterations, long escapeRadius,
+                                         int precision) {
+        MathContext mc = new MathContext(precision);
+        int capacity = (int) Math.min(maxIterations + 1, Integer.MAX_VALUE - 8);
+
+        if(orbitR.length < capacity) {
+            orbitR = new double[capacity];
+            orbitI = new double[capacity];
+        }
+
+        BigDecimal Zr = BigDecimal.ZERO;
+        BigDecimal Zi = BigDecimal.ZERO;
+        BigDecimal two = BigDecimal.valueOf(2);
+        int n = 0;
+
+        orbitR[0] = 0;
+        orbitI[0] = 0;
+
+        // Mandelbrot set equation calculated until reference point escapes
+        while(++n < capacity) {
+            BigDecimal Zr2 = Zr.multiply(Zr, mc);
+            BigDecimal Zi2 = Zi.multiply(Zi, mc);
+
+            if(Zr2.add(Zi2, mc).doubleValue() > escapeRadius)
+                break;
+
+            Zi = two.multiply(Zr).multiply(Zi, mc).add(y, mc);
+            Zr = Zr2.subtract(Zi2, mc).add(x, mc);
+            orbitR[n] = Zr.doubleValue();
+            orbitI[n] = Zi.doubleValue();
+        }
+
+        orbitLength = n;
+        referenceX = x;
+        referenceY = y;
+        this.maxIterations = maxIterations;
+        this.escapeRadius = escapeRadius;
+        this.precision = precision;
+    }
+
+    BigDecimal getReferenceX() {
+        return referenceX;
+    }
+
+    BigDecimal getReferenceY() {
+        return referenceY;
+    }
+
+    /**
+     * Stores number of iterations and escape value of point reference + (dcr, dci) in frame
+     * @param dcr real part of difference between point and reference point
+     * @param dci imaginary part of difference between point and reference point
+     */
+    void getIterations(double dcr, double dci, MandelbrotSetFrame frame, int index) {
+        double dzr = 0;
+        double dzi = 0;
+        double Zr2 = 0;
+        double Zi2 = 0;
+        int m = 0; // Position on reference orbit
+        long n = 0;
+
+        while(n < maxIterations) {
+            double Zr = orbitR[m];
+            double Zi = orbitI[m];
+            double newDzr = 2 * (Zr * dzr - Zi * dzi) + dzr * dzr - dzi * dzi + dcr;
+            double newDzi = 2 * (Zr * dzi + Zi * dzr) + 2 * dzr * dzi + dci;
+            dzr = newDzr;
+            dzi = newDzi;
+            ++m;
+            ++n;
+
+            // Full value of Z for the point
+            double zr = orbitR[m] + dzr;
+            double zi = orbitI[m] + dzi;
+            Zr2 = zr * zr;
+            Zi2 = zi * zi;
+
+            if(Zr2 + Zi2 > escapeRadius)
+                break;
+
+            // Rebase if delta became bigger than the point itself (glitch) or reference orbit ended
+            if(Zr2 + Zi2 < dzr * dzr + dzi * dzi || m == orbitLength - 1) {
+                dzr = zr;
+                dzi = zi;
+                m = 0;
+            }
+        }
+
+        frame.set(index, (int) n, (float) (Zr2 + Zi2));
+    }
+}
@@ -0,0 +1,16 @@
+package io.github.mateusz00.MandelbrotSet.mandelbrot;
+
+/**
+ * Arithmetic used to calculate pixels, chosen depending on how pixel spacing compares to precision of coordinates
+ */
+public enum PrecisionBand
+{
+    /** Single precision iteration of every pixel, used for shallow views only */
+    FLOAT,
+    /** Plain double precision iteration of every pixel */
+    DOUBLE,
+    /** Double-double (about 106 bits) iteration of every pixel */
+    DOUBLE_DOUBLE,
+    /** High precision reference orbit with per-pixel deltas iterated in double precision */
+    PERTURBATION
+}
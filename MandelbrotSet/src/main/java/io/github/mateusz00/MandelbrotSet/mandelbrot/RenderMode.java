@@ -0,0 +1,35 @@
+package io.github.mateusz00.MandelbrotSet.mandelbrot;
+
+/**
+ * Algorithms which can be used to fill the frame with results
+ */
+public enum RenderMode
+{
+    /** Calculates every pixel */
+    BRUTE_FORCE("Every pixel"),
+    /**
+     * Calculates borders of rectangles and fills them if whole border has the same number of iterations.
+     * Areas that reached max iterations are filled only inside main cardioid and period-2 bulb.
+     */
+    MARIANI_SILVER("Rectangle subdivision (Mariani-Silver)"),
+    /**
+     * Follows borders between areas with the same number of iterations and fills their interiors.
+     * Areas that reached max iterations are filled only inside main cardioid and period-2 bulb.
+     */
+    BOUNDARY_TRACING("Boundary tracing");
+
+    private final String description;
+
+    RenderMode(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    @Override
+    public String toString() {
+        return description;
+    }
+}
@@ -0,0 +1,29 @@
+package io.github.mateusz00.MandelbrotSet.mandelbrot;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates named worker threads of given priority for render pool
+ */
+class RenderThreadFactory implements ForkJoinPool.ForkJoinWorkerThreadFactory
+{
+    private static final String NAME_PREFIX = "mandelbrot-render-";
+    private final AtomicInteger counter = new AtomicInteger();
+    private final int priority;
+
+    RenderThreadFactory(int priority) {
+        this.priority = priority;
+    }
+
+    @Override
+    public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+        ForkJoinWorkerThread thread = new ForkJoinWorkerThread(pool) {};
+        thread.setName(NAME_PREFIX + counter.incrementAndGet());
+        thread.setPriority(priority);
+        thread.setDaemon(true);
+
+        return thread;
+    }
+}
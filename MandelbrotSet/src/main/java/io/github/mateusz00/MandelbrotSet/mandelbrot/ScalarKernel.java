@@ -0,0 +1,75 @@
+package io.github.mateusz00.MandelbrotSet.mandelbrot;
+
+/**
+ * Simplest escape-time kernel iterating one pixel at a time in double precision
+ */
+class ScalarKernel
+{
+    /**
+     * Calculates iterations and escape value for every pixelStep-th pixel in range &lt;firstPixel, lastPixel) of one
+     * line
+     * @param periodicityTolerance tolerance used to detect periodic orbits, periodicity isn't checked if it's 0
+     * @param lineOffset index of the first pixel of the line in frame
+     */
+    static void generateLine(double left, double xStep, double Pi, int firstPixel, int lastPixel, int pixelStep,
+                             long maxIterations, long escapeRadius, boolean cardioidCheck, double periodicityTolerance,
+                             MandelbrotSetFrame frame, int lineOffset) {
+        for(int i = firstPixel; i < lastPixel; i += pixelStep)
+            getIterations(left + xStep * i, Pi, maxIterations, escapeRadius, cardioidCheck, periodicityTolerance,
+                    frame, lineOffset + i);
+    }
+
+    /**
+     * Stores number of iterations performed for given point until going past escapeRadius and its escape value
+     * @param Pr real part of point
+     * @param Pi imaginary part of point
+     * @param index index of pixel in frame
+     */
+    static void getIterations(double Pr, double Pi, long maxIterations, long escapeRadius, boolean cardioidCheck,
+                              double periodicityTolerance, MandelbrotSetFrame frame, int index) {
+        // Points inside main cardioid or period-2 bulb never escape so there's no need to iterate them
+        if(cardioidCheck && MandelbrotSetModel.isInMainCardioidOrBulb(Pr, Pi)) {
+            frame.set(index, (int) maxIterations, 0);
+            return;
+        }
+
+        boolean periodicityCheck = periodicityTolerance > 0;
+        double Zr  = 0;
+        double Zi  = 0;
+        double Zr2 = 0; // decreases amount of multiplications
+        double Zi2 = 0; // decreases amount of multiplications
+        long   n   = 0;
+
+        // Orbit saved for periodicity detection (Brent's algorithm: saved point is replaced every time the number
+        // of iterations since last save reaches checkInterval, which doubles each time)
+        double savedZr = 0;
+        double savedZi = 0;
+        long checkInterval = 1;
+        long sinceSave = 0;
+
+        // Mandelbrot set equation
+        for( ; n < maxIterations && Zr2+Zi2 <= escapeRadius; ++n) {
+            Zi = 2 * Zr * Zi + Pi;
+            Zr = Zr2 - Zi2 + Pr;
+            Zr2 = Zr * Zr;
+            Zi2 = Zi * Zi;
+
+            if(periodicityCheck) {
+                // Orbit came back to saved point so it is periodic and will never escape
+                if(Math.abs(Zr - savedZr) < periodicityTolerance && Math.abs(Zi - savedZi) < periodicityTolerance) {
+                    n = maxIterations;
+                    break;
+                }
+
+                if(++sinceSave == checkInterval) {
+                    savedZr = Zr;
+                    savedZi = Zi;
+                    sinceSave = 0;
+                    checkInterval <<= 1;
+                }
+            }
+        }
+
+        frame.set(index, (int) n, (float) (Zr2+Zi2));
+    }
+}
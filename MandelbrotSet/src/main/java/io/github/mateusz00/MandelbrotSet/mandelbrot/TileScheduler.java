@@ -0,0 +1,208 @@
+package io.github.mateusz00.MandelbrotSet.mandelbrot;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Splits frame into square tiles and renders them in ForkJoinPool. Tile size depends on frame size and parallelism,
+ * tiles are visited in Z-order (Morton order) so that neighbouring tiles are rendered by the same thread. Time of
+ * every tile is measured and used in the next frame to split work into halves of equal estimated cost, so that
+ * expensive tiles (crossing the set) don't end up in one task.
+ */
+class TileScheduler
+{
+    private static final int TILES_PER_THREAD = 16;
+    private static final int MIN_TILE_SIZE = 32;
+    private static final int MAX_TILE_SIZE = 256;
+    private final int width;
+    private final int height;
+    private final int tileSize;
+    private final int columns;
+    private final int[] zOrder; // Tile indices sorted in Z-order
+    private final double[] costPerPixel; // Measured in the last frame, 0 if tile wasn't rendered yet
+
+    /**
+     * Renders rectangle &lt;firstPixel, lastPixel) x &lt;firstLine, lastLine) of frame
+     */
+    interface TileRenderer
+    {
+        void render(int firstPixel, int lastPixel, int firstLine, int lastLine);
+    }
+
+    TileScheduler(int width, int height, int parallelism) {
+        this.width = width;
+        this.height = height;
+
+        tileSize = getTileSize(width, height, parallelism);
+        columns = (width + tileSize - 1) / tileSize;
+        int rows = (height + tileSize - 1) / tileSize;
+
+        zOrder = new int[columns * rows];
+        long[] keys = new long[zOrder.length];
+
+        // Morton code in upper bits, tile index in lower bits, so sorting keys sorts indices
+        for(int i = 0; i < zOrder.length; ++i)
+            keys[i] = (interleaveBits(i % columns) | interleaveBits(i / columns) << 1) << 32 | i;
+
+        Arrays.sort(keys);
+
+        for(int i = 0; i < zOrder.length; ++i)
+            zOrder[i] = (int) keys[i];
+
+        costPerPixel = new double[zOrder.length];
+    }
+
+    /**
+     * @return true if scheduler was created for given frame size and parallelism
+     */
+    boolean fits(int width, int height, int parallelism) {
+        return this.width == width && this.height == height && tileSize == getTileSize(width, height, parallelism);
+    }
+
+    /**
+     * @return side of square tile giving about TILES_PER_THREAD tiles for every thread
+     */
+    private static int getTileSize(int width, int height, int parallelism) {
+        int size = (int) Math.sqrt((double) width * height / (parallelism * TILES_PER_THREAD));
+        return Math.max(MIN_TILE_SIZE, Math.min(MAX_TILE_SIZE, size));
+    }
+
+    /**
+     * Renders part of rectangle &lt;startX, endX) x &lt;startY, endY) covered by every tile in pool and waits until
+     * all of them are done. Tiles that didn't start before cancelled returned true are skipped.
+     */
+    void render(ForkJoinPool pool, int startX, int endX, int startY, int endY, TileRenderer renderer,
+                BooleanSupplier cancelled) {
+        int[] tiles = new int[zOrder.length];
+        int count = 0;
+
+        for(int tile : zOrder) {
+            if(getArea(tile, startX, endX, startY, endY) > 0)
+                tiles[count++] = tile;
+        }
+
+        if(count == 0)
+            return;
+
+        // Tiles that weren't measured yet are assumed to cost as much as an average measured tile
+        double measuredCost = 0;
+        long measuredArea = 0;
+
+        for(int i = 0; i < count; ++i) {
+            if(costPerPixel[tiles[i]] > 0) {
+                measuredCost += costPerPixel[tiles[i]] * getArea(tiles[i], startX, endX, startY, endY);
+                measuredArea += getArea(tiles[i], startX, endX, startY, endY);
+            }
+        }
+
+        double defaultCost = measuredArea > 0 ? measuredCost / measuredArea : 1;
+        double[] prefixCost = new double[count + 1];
+
+        for(int i = 0; i < count; ++i) {
+            double cost = costPerPixel[tiles[i]] > 0 ? costPerPixel[tiles[i]] : defaultCost;
+            prefixCost[i + 1] = prefixCost[i] + cost * getArea(tiles[i], startX, endX, startY, endY);
+        }
+
+        pool.invoke(new TileTask(tiles, prefixCost, 0, count, startX, endX, startY, endY, renderer, cancelled));
+    }
+
+    /**
+     * @return number of pixels of tile inside rectangle &lt;startX, endX) x &lt;startY, endY)
+     */
+    private int getArea(int tile, int startX, int endX, int startY, int endY) {
+        int[] bounds = getBounds(tile, startX, endX, startY, endY);
+        return bounds[1] > bounds[0] && bounds[3] > bounds[2] ? (bounds[1] - bounds[0]) * (bounds[3] - bounds[2]) : 0;
+    }
+
+    /**
+     * @return {firstPixel, lastPixel, firstLine, lastLine} of part of tile inside given rectangle
+     */
+    private int[] getBounds(int tile, int startX, int endX, int startY, int endY) {
+        int column = tile % columns;
+        int row = tile / columns;
+
+        return new int[] {
+                Math.max(startX, column * tileSize),
+                Math.min(endX, Math.min(width, (column + 1) * tileSize)),
+                Math.max(startY, row * tileSize),
+                Math.min(endY, Math.min(height, (row + 1) * tileSize))};
+    }
+
+    /**
+     * Spreads lower 16 bits of value so that there's a zero bit between every two of them
+     */
+    private static long interleaveBits(long value) {
+        value &= 0xFFFF;
+        value = (value | value << 8) & 0x00FF00FFL;
+        value = (value | value << 4) & 0x0F0F0F0FL;
+        value = (value | value << 2) & 0x33333333L;
+        value = (value | value << 1) & 0x55555555L;
+        return value;
+    }
+
+    /**
+     * Renders tiles in range &lt;from, to) of Z-ordered list, range is split where half of its estimated cost is
+     */
+    private class TileTask extends RecursiveAction
+    {
+        private final int[] tiles;
+        private final double[] prefixCost;
+        private final int from;
+        private final int to;
+        private final int startX;
+        private final int endX;
+        private final int startY;
+        private final int endY;
+        private final TileRenderer renderer;
+        private final BooleanSupplier cancelled;
+
+        TileTask(int[] tiles, double[] prefixCost, int from, int to, int startX, int endX, int startY, int endY,
+                 TileRenderer renderer, BooleanSupplier cancelled) {
+            this.tiles = tiles;
+            this.prefixCost = prefixCost;
+            this.from = from;
+            this.to = to;
+            this.startX = startX;
+            this.endX = endX;
+            this.startY = startY;
+            this.endY = endY;
+            this.renderer = renderer;
+            this.cancelled = cancelled;
+        }
+
+        @Override
+        protected void compute() {
+            if(cancelled.getAsBoolean())
+                return;
+
+            if(to - from == 1) {
+                renderTile(tiles[from]);
+                return;
+            }
+
+            double half = (prefixCost[from] + prefixCost[to]) / 2;
+            int mid = from + 1;
+
+            while(mid < to - 1 && prefixCost[mid + 1] <= half)
+                ++mid;
+
+            invokeAll(new TileTask(tiles, prefixCost, from, mid, startX, endX, startY, endY, renderer, cancelled),
+                      new TileTask(tiles, prefixCost, mid, to, startX, endX, startY, endY, renderer, cancelled));
+        }
+
+        private void renderTile(int tile) {
+            int[] bounds = getBounds(tile, startX, endX, startY, endY);
+            long start = System.nanoTime();
+            renderer.render(bounds[0], bounds[1], bounds[2], bounds[3]);
+
+            // Tile interrupted by cancellation would look cheaper than it is
+            if(cancelled.getAsBoolean())
+                return;
+
+            long time = Math.max(1, System.nanoTime() - start);
+            costPerPixel[tile] = time / (double) ((bounds[1] - bounds[0]) * (bounds[3] - bounds[2]));
+        }
+    }
+}
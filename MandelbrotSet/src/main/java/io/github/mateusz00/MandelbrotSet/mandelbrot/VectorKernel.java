@@ -0,0 +1,37 @@
+package io.github.mateusz00.MandelbrotSet.mandelbrot;
+
+/**
+ * Escape-time kernel which iterates several pixels at once with SIMD instructions. This is a fallback used on Java 8,
+ * the real implementation based on jdk.incubator.vector is in src/main/java17 and is loaded from multi-release jar on
+ * JDK 17+ when the application is started with --add-modules jdk.incubator.vector
+ */
+class VectorKernel
+{
+    /**
+     * @return true if vectorized kernel can be used on this JVM
+     */
+    static boolean isSupported() {
+        return false;
+    }
+
+    /**
+     * Calculates iterations and escape value for every pixelStep-th pixel in range &lt;firstPixel, lastPixel) of one
+     * line
+     * @param periodicityTolerance tolerance used to detect periodic orbits, periodicity isn't checked if it's 0
+     * @param lineOffset index of the first pixel of the line in frame
+     */
+    static void generateLine(double left, double xStep, double Pi, int firstPixel, int lastPixel, int pixelStep,
+                             long maxIterations, long escapeRadius, boolean cardioidCheck,
+                             double periodicityTolerance, MandelbrotSetFrame frame, int lineOffset) {
+        throw new UnsupportedOperationException("Vectorized kernel requires JDK 17+ with jdk.incubator.vector");
+    }
+
+    /**
+     * Single precision version of generateLine, iterates twice as many pixels at once
+     */
+    static void generateLineFloat(double left, double xStep, double Pi, int firstPixel, int lastPixel, int pixelStep,
+                                  long maxIterations, long escapeRadius, boolean cardioidCheck,
+                                  double periodicityTolerance, MandelbrotSetFrame frame, int lineOffset) {
+        throw new UnsupportedOperationException("Vectorized kernel requires JDK 17+ with jdk.incubator.vector");
+    }
+}
@@ -0,0 +1,337 @@
+package io.github.mateusz00.MandelbrotSet.mandelbrot;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Escape-time kernel which iterates one lane-width of pixels at once. Lanes whose pixel escaped (or was recognized
+ * as periodic) are frozen by masks, and after every ITERATIONS_PER_REFILL iterations finished lanes are written to
+ * the frame and refilled with next pixels of the line. Uses the same operations in the same order as ScalarKernel
+ * (and FloatKernel for single precision), so results are identical.
+ */
+class VectorKernel
+{
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Float> FLOAT_SPECIES = FloatVector.SPECIES_PREFERRED;
+    private static final int ITERATIONS_PER_REFILL = 32;
+    // Lane state is kept per thread, kernel is called for single pixels by subdivision and tracing render modes
+    private static final ThreadLocal<LaneState> LANE_STATE = ThreadLocal.withInitial(LaneState::new);
+    private static final ThreadLocal<FloatLaneState> FLOAT_LANE_STATE = ThreadLocal.withInitial(FloatLaneState::new);
+
+    /**
+     * State of every lane between refills
+     */
+    private static class LaneState
+    {
+        final int[] pixel = new int[SPECIES.length()];
+        final double[] cr = new double[SPECIES.length()];
+        final double[] zr = new double[SPECIES.length()];
+        final double[] zi = new double[SPECIES.length()];
+        final double[] n = new double[SPECIES.length()];
+        final double[] savedZr = new double[SPECIES.length()];
+        final double[] savedZi = new double[SPECIES.length()];
+        final double[] sinceSave = new double[SPECIES.length()];
+        final double[] checkInterval = new double[SPECIES.length()];
+    }
+
+    private static class FloatLaneState
+    {
+        final int[] pixel = new int[FLOAT_SPECIES.length()];
+        final float[] cr = new float[FLOAT_SPECIES.length()];
+        final float[] zr = new float[FLOAT_SPECIES.length()];
+        final float[] zi = new float[FLOAT_SPECIES.length()];
+        final float[] n = new float[FLOAT_SPECIES.length()];
+        final float[] savedZr = new float[FLOAT_SPECIES.length()];
+        final float[] savedZi = new float[FLOAT_SPECIES.length()];
+        final float[] sinceSave = new float[FLOAT_SPECIES.length()];
+        final float[] checkInterval = new float[FLOAT_SPECIES.length()];
+    }
+
+    static boolean isSupported() {
+        return SPECIES.length() > 1;
+    }
+
+    static void generateLine(double left, double xStep, double Pi, int firstPixel, int lastPixel, int pixelStep,
+                             long maxIterations, long escapeRadius, boolean cardioidCheck,
+                             double periodicityTolerance, MandelbrotSetFrame frame, int lineOffset) {
+        final int lanes = SPECIES.length();
+        final double max = maxIterations;
+        final boolean periodicityCheck = periodicityTolerance > 0;
+
+        // Every lane is loaded before it's read, so state left by the previous line doesn't matter
+        LaneState state = LANE_STATE.get();
+        int[] pixel = state.pixel;
+        double[] cr = state.cr;
+        double[] zr = state.zr;
+        double[] zi = state.zi;
+        double[] n = state.n;
+        double[] savedZr = state.savedZr;
+        double[] savedZi = state.savedZi;
+        double[] sinceSave = state.sinceSave;
+        double[] checkInterval = state.checkInterval;
+
+        DoubleVector ci = DoubleVector.broadcast(SPECIES, Pi);
+        int next = firstPixel;
+        int busyLanes = 0;
+
+        for(int lane = 0; lane < lanes; ++lane) {
+            next = loadPixel(lane, next, lastPixel, pixelStep, left, xStep, Pi, maxIterations, cardioidCheck, frame,
+                    lineOffset, pixel, cr, zr, zi, n, savedZr, savedZi, sinceSave, checkInterval);
+
+            if(pixel[lane] >= 0)
+                ++busyLanes;
+        }
+
+        while(busyLanes > 0) {
+            DoubleVector vCr = DoubleVector.fromArray(SPECIES, cr, 0);
+            DoubleVector vZr = DoubleVector.fromArray(SPECIES, zr, 0);
+            DoubleVector vZi = DoubleVector.fromArray(SPECIES, zi, 0);
+            DoubleVector vN = DoubleVector.fromArray(SPECIES, n, 0);
+            DoubleVector vSavedZr = DoubleVector.fromArray(SPECIES, savedZr, 0);
+            DoubleVector vSavedZi = DoubleVector.fromArray(SPECIES, savedZi, 0);
+            DoubleVector vSinceSave = DoubleVector.fromArray(SPECIES, sinceSave, 0);
+            DoubleVector vInterval = DoubleVector.fromArray(SPECIES, checkInterval, 0);
+            DoubleVector vZr2 = vZr.mul(vZr);
+            DoubleVector vZi2 = vZi.mul(vZi);
+
+            for(int i = 0; i < ITERATIONS_PER_REFILL; ++i) {
+                VectorMask<Double> active = vN.compare(VectorOperators.LT, max)
+                        .and(vZr2.add(vZi2).compare(VectorOperators.LE, escapeRadius));
+
+                if(!active.anyTrue())
+                    break;
+
+                DoubleVector newZi = vZr.mul(2.0).mul(vZi).add(ci);
+                DoubleVector newZr = vZr2.sub(vZi2).add(vCr);
+                vZr = vZr.blend(newZr, active);
+                vZi = vZi.blend(newZi, active);
+                vZr2 = vZr.mul(vZr);
+                vZi2 = vZi.mul(vZi);
+                vN = vN.add(1, active);
+
+                if(periodicityCheck) {
+                    // Orbit came back to saved point so it will never escape
+                    VectorMask<Double> periodic = active
+                            .and(vZr.sub(vSavedZr).abs().compare(VectorOperators.LT, periodicityTolerance))
+                            .and(vZi.sub(vSavedZi).abs().compare(VectorOperators.LT, periodicityTolerance));
+                    vN = vN.blend(max, periodic);
+
+                    vSinceSave = vSinceSave.add(1, active);
+                    VectorMask<Double> save = active.andNot(periodic)
+                            .and(vSinceSave.compare(VectorOperators.EQ, vInterval));
+                    vSavedZr = vSavedZr.blend(vZr, save);
+                    vSavedZi = vSavedZi.blend(vZi, save);
+                    vSinceSave = vSinceSave.blend(0, save);
+                    vInterval = vInterval.blend(vInterval.mul(2.0), save);
+                }
+            }
+
+            vZr.intoArray(zr, 0);
+            vZi.intoArray(zi, 0);
+            vN.intoArray(n, 0);
+            vSavedZr.intoArray(savedZr, 0);
+            vSavedZi.intoArray(savedZi, 0);
+            vSinceSave.intoArray(sinceSave, 0);
+            vInterval.intoArray(checkInterval, 0);
+
+            // Store finished pixels and refill their lanes
+            for(int lane = 0; lane < lanes; ++lane) {
+                if(pixel[lane] < 0)
+                    continue;
+
+                double magnitude = zr[lane] * zr[lane] + zi[lane] * zi[lane];
+
+                if(n[lane] >= max || magnitude > escapeRadius) {
+                    frame.set(lineOffset + pixel[lane], (int) n[lane], (float) magnitude);
+                    next = loadPixel(lane, next, lastPixel, pixelStep, left, xStep, Pi, maxIterations, cardioidCheck,
+                            frame, lineOffset, pixel, cr, zr, zi, n, savedZr, savedZi, sinceSave, checkInterval);
+
+                    if(pixel[lane] < 0)
+                        --busyLanes;
+                }
+            }
+        }
+    }
+
+    /**
+     * Loads next pixel which has to be iterated into lane. Pixels inside main cardioid or period-2 bulb are stored
+     * right away. Lane that can't get any pixel is marked with -1 and stays inactive.
+     * @return index of the pixel that should be loaded next
+     */
+    private static int loadPixel(int lane, int next, int lastPixel, int pixelStep, double left, double xStep,
+                                 double Pi, long maxIterations, boolean cardioidCheck, MandelbrotSetFrame frame,
+                                 int lineOffset, int[] pixel, double[] cr, double[] zr, double[] zi, double[] n,
+                                 double[] savedZr, double[] savedZi, double[] sinceSave, double[] checkInterval) {
+        for( ; next < lastPixel; next += pixelStep) {
+            double Pr = left + xStep * next;
+
+            if(cardioidCheck && MandelbrotSetModel.isInMainCardioidOrBulb(Pr, Pi)) {
+                frame.set(lineOffset + next, (int) maxIterations, 0);
+                continue;
+            }
+
+            pixel[lane] = next;
+            cr[lane] = Pr;
+            zr[lane] = 0;
+            zi[lane] = 0;
+            n[lane] = 0;
+            savedZr[lane] = 0;
+            savedZi[lane] = 0;
+            sinceSave[lane] = 0;
+            checkInterval[lane] = 1;
+
+            return next + pixelStep;
+        }
+
+        // Nothing left to load, lane stays inactive
+        pixel[lane] = -1;
+        n[lane] = maxIterations;
+
+        return next;
+    }
+
+    /**
+     * Single precision version of generateLine, iterates twice as many pixels at once
+     */
+    static void generateLineFloat(double left, double xStep, double Pi, int firstPixel, int lastPixel, int pixelStep,
+                                  long maxIterations, long escapeRadius, boolean cardioidCheck,
+                                  double periodicityTolerance, MandelbrotSetFrame frame, int lineOffset) {
+        final int lanes = FLOAT_SPECIES.length();
+        final float max = maxIterations;
+        final boolean periodicityCheck = periodicityTolerance > 0;
+        final float tolerance = (float) periodicityTolerance;
+
+        // Every lane is loaded before it's read, so state left by the previous line doesn't matter
+        FloatLaneState state = FLOAT_LANE_STATE.get();
+        int[] pixel = state.pixel;
+        float[] cr = state.cr;
+        float[] zr = state.zr;
+        float[] zi = state.zi;
+        float[] n = state.n;
+        float[] savedZr = state.savedZr;
+        float[] savedZi = state.savedZi;
+        float[] sinceSave = state.sinceSave;
+        float[] checkInterval = state.checkInterval;
+
+        FloatVector ci = FloatVector.broadcast(FLOAT_SPECIES, (float) Pi);
+        int next = firstPixel;
+        int busyLanes = 0;
+
+        for(int lane = 0; lane < lanes; ++lane) {
+            next = loadPixelFloat(lane, next, lastPixel, pixelStep, left, xStep, Pi, maxIterations, cardioidCheck,
+                    frame, lineOffset, pixel, cr, zr, zi, n, savedZr, savedZi, sinceSave, checkInterval);
+
+            if(pixel[lane] >= 0)
+                ++busyLanes;
+        }
+
+        while(busyLanes > 0) {
+            FloatVector vCr = FloatVector.fromArray(FLOAT_SPECIES, cr, 0);
+            FloatVector vZr = FloatVector.fromArray(FLOAT_SPECIES, zr, 0);
+            FloatVector vZi = FloatVector.fromArray(FLOAT_SPECIES, zi, 0);
+            FloatVector vN = FloatVector.fromArray(FLOAT_SPECIES, n, 0);
+            FloatVector vSavedZr = FloatVector.fromArray(FLOAT_SPECIES, savedZr, 0);
+            FloatVector vSavedZi = FloatVector.fromArray(FLOAT_SPECIES, savedZi, 0);
+            FloatVector vSinceSave = FloatVector.fromArray(FLOAT_SPECIES, sinceSave, 0);
+            FloatVector vInterval = FloatVector.fromArray(FLOAT_SPECIES, checkInterval, 0);
+            FloatVector vZr2 = vZr.mul(vZr);
+            FloatVector vZi2 = vZi.mul(vZi);
+
+            for(int i = 0; i < ITERATIONS_PER_REFILL; ++i) {
+                VectorMask<Float> active = vN.compare(VectorOperators.LT, max)
+                        .and(vZr2.add(vZi2).compare(VectorOperators.LE, (float) escapeRadius));
+
+                if(!active.anyTrue())
+                    break;
+
+                FloatVector newZi = vZr.mul(2.0f).mul(vZi).add(ci);
+                FloatVector newZr = vZr2.sub(vZi2).add(vCr);
+                vZr = vZr.blend(newZr, active);
+                vZi = vZi.blend(newZi, active);
+                vZr2 = vZr.mul(vZr);
+                vZi2 = vZi.mul(vZi);
+                vN = vN.add(1f, active);
+
+                if(periodicityCheck) {
+                    // Orbit came back to saved point so it will never escape
+                    VectorMask<Float> periodic = active
+                            .and(vZr.sub(vSavedZr).abs().compare(VectorOperators.LT, tolerance))
+                            .and(vZi.sub(vSavedZi).abs().compare(VectorOperators.LT, tolerance));
+                    vN = vN.blend(max, periodic);
+
+                    vSinceSave = vSinceSave.add(1f, active);
+                    VectorMask<Float> save = active.andNot(periodic)
+                            .and(vSinceSave.compare(VectorOperators.EQ, vInterval));
+                    vSavedZr = vSavedZr.blend(vZr, save);
+                    vSavedZi = vSavedZi.blend(vZi, save);
+                    vSinceSave = vSinceSave.blend(0f, save);
+                    vInterval = vInterval.blend(vInterval.mul(2.0f), save);
+                }
+            }
+
+            vZr.intoArray(zr, 0);
+            vZi.intoArray(zi, 0);
+            vN.intoArray(n, 0);
+            vSavedZr.intoArray(savedZr, 0);
+            vSavedZi.intoArray(savedZi, 0);
+            vSinceSave.intoArray(sinceSave, 0);
+            vInterval.intoArray(checkInterval, 0);
+
+            // Store finished pixels and refill their lanes
+            for(int lane = 0; lane < lanes; ++lane) {
+                if(pixel[lane] < 0)
+                    continue;
+
+                float magnitude = zr[lane] * zr[lane] + zi[lane] * zi[lane];
+
+                if(n[lane] >= max || magnitude > escapeRadius) {
+                    frame.set(lineOffset + pixel[lane], (int) n[lane], magnitude);
+                    next = loadPixelFloat(lane, next, lastPixel, pixelStep, left, xStep, Pi, maxIterations,
+                            cardioidCheck, frame, lineOffset, pixel, cr, zr, zi, n, savedZr, savedZi, sinceSave,
+                            checkInterval);
+
+                    if(pixel[lane] < 0)
+                        --busyLanes;
+                }
+            }
+        }
+    }
+
+    /**
+     * Single precision version of loadPixel
+     */
+    private static int loadPixelFloat(int lane, int next, int lastPixel, int pixelStep, double left, double xStep,
+                                      double Pi, long maxIterations, boolean cardioidCheck, MandelbrotSetFrame frame,
+                                      int lineOffset, int[] pixel, float[] cr, float[] zr, float[] zi, float[] n,
+                                      float[] savedZr, float[] savedZi, float[] sinceSave, float[] checkInterval) {
+        for( ; next < lastPixel; next += pixelStep) {
+            double Pr = left + xStep * next;
+
+            if(cardioidCheck && MandelbrotSetModel.isInMainCardioidOrBulb(Pr, Pi)) {
+                frame.set(lineOffset + next, (int) maxIterations, 0);
+                continue;
+            }
+
+            pixel[lane] = next;
+            cr[lane] = (float) Pr;
+            zr[lane] = 0;
+            zi[lane] = 0;
+            n[lane] = 0;
+            savedZr[lane] = 0;
+            savedZi[lane] = 0;
+            sinceSave[lane] = 0;
+            checkInterval[lane] = 1;
+
+            return next + pixelStep;
+        }
+
+        // Nothing left to load, lane stays inactive
+        pixel[lane] = -1;
+        n[lane] = maxIterations;
+
+        return next;
+    }
+}